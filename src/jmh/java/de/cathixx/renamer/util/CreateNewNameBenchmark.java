@@ -0,0 +1,55 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.Episode;
+import de.cathixx.renamer.data.Language;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CreateNewNameBenchmark {
+
+  private static final Language LANGUAGE = new Language("de", "Deutsch");
+
+  private static final String[] TITLES = {"Pilot", "Der Anfang...", "Wer ist A.?", "Teil 1/2: \"Die Rückkehr\"",
+      "...und   dann  kam   alles anders", "Mord im Orient–Express!", "„Zitat“ – 3 <Akte>"};
+
+  private final List<Episode> episodes = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    Map<Language, String> showNames = Map.of(LANGUAGE, "Star Trek: Deep Space Nine");
+    int id = 0;
+    for (int s = 1; s <= 7; s++) {
+      for (int e = 1; e <= 26; e++) {
+        String title = TITLES[(s * e) % TITLES.length];
+        this.episodes.add(new Episode(id++, s, e, showNames, Map.of(LANGUAGE, title)));
+      }
+    }
+  }
+
+  @Benchmark
+  public void createNewName(Blackhole bh) {
+    for (Episode episode : this.episodes) {
+      bh.consume(TVShowFileSupport.createNewName(episode, LANGUAGE, false));
+    }
+  }
+
+  @Benchmark
+  public void createNewNameWithTitle(Blackhole bh) {
+    for (Episode episode : this.episodes) {
+      bh.consume(TVShowFileSupport.createNewName(episode, LANGUAGE, true));
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package de.cathixx.renamer.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EpisodeNumberBenchmark {
+
+  private static final int SEASON = 3;
+
+  private static final String[] FORMATS = {"S%02dE%02d - Der Anfang.mp4", "show.s%02de%02d.german.dl.720p-x264-grp.mkv",
+      "%dx%02d Pilot.avi", "Show.S%02d.E%02d.mkv", "Show - %d%02d - Titel.avi", "Folge Ep%2$02d.mkv",
+      "Show-E%2$02d-Titel.mkv", "Show %d-%02d.mov", "Show %d%02d.mpg", "%2$02d"};
+
+  private final List<File> corpus = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    for (String format : FORMATS) {
+      for (int e = 1; e <= 24; e++) {
+        this.corpus.add(new File(String.format(format, SEASON, e)));
+      }
+    }
+  }
+
+  @Benchmark
+  public void getEpisodeNumber(Blackhole bh) {
+    for (File file : this.corpus) {
+      bh.consume(TVShowFileSupport.getEpisodeNumber(file, new EpisodeNumberRecognizer(SEASON)));
+    }
+  }
+
+  @Benchmark
+  public void getEpisodeNumberPerDirectory(Blackhole bh) {
+    EpisodeNumberRecognizer recognizer = new EpisodeNumberRecognizer(SEASON);
+    for (File file : this.corpus) {
+      bh.consume(TVShowFileSupport.getEpisodeNumber(file, recognizer));
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.EpisodeTableItem;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ListEpisodesBenchmark {
+
+  @Param({"5", "20"})
+  private int seasons;
+
+  @Param({"24"})
+  private int episodesPerSeason;
+
+  private Path showDirectory;
+
+  private List<File> seasonFiles;
+
+  private Path snapshotDirectory;
+
+  private DirectorySnapshots snapshots;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.showDirectory = Files.createTempDirectory("renamer-bench");
+    this.seasonFiles = new ArrayList<>();
+    for (int s = 1; s <= this.seasons; s++) {
+      Path seasonDir = Files.createDirectory(this.showDirectory.resolve(String.format("Staffel %02d", s)));
+      for (int e = 1; e <= this.episodesPerSeason; e++) {
+        Files.createFile(seasonDir.resolve(String.format("Show.S%02dE%02d.German.720p.x264.mkv", s, e)));
+      }
+      Files.createFile(seasonDir.resolve("folder.jpg"));
+      this.seasonFiles.add(seasonDir.toFile());
+    }
+    this.snapshotDirectory = Files.createTempDirectory("renamer-bench-snapshots");
+    this.snapshots = new DirectorySnapshots(new DiskStore(this.snapshotDirectory));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    delete(this.showDirectory);
+    delete(this.snapshotDirectory);
+  }
+
+  private static void delete(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Benchmark
+  public Collection<EpisodeTableItem> listEpisodes() {
+    return TVShowFileSupport.listEpisodes(this.seasonFiles, DirectoryScanner.getDefault());
+  }
+
+  @Benchmark
+  public Collection<EpisodeTableItem> listEpisodesFromSnapshots() {
+    return TVShowFileSupport.listEpisodes(this.seasonFiles, DirectoryScanner.getDefault(), this.snapshots);
+  }
+}
@@ -0,0 +1,62 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TVShowComparatorBenchmark {
+
+  private static final String SEARCH = "Star Trek";
+
+  private static final Language GERMAN = new Language("de", "Deutsch");
+
+  private static final Language ENGLISH = new Language("en", "Englisch");
+
+  @Param({"40", "400"})
+  private int size;
+
+  private List<TVShow> shows;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    this.shows = new ArrayList<>();
+    for (int i = 0; i < this.size; i++) {
+      String name = i % 50 == 0 ? SEARCH : SEARCH + " " + i;
+      Map<Language, String> names = i % 3 == 0 ? Map.of(GERMAN, name) : Map.of(GERMAN, name, ENGLISH, name + " (en)");
+      Integer year = i % 7 == 0 ? null : 1960 + random.nextInt(60);
+      this.shows.add(new TVShow("TMDB", i, year, names, null, Collections.emptyList(), 0, random.nextFloat() * 100));
+    }
+    Collections.shuffle(this.shows, random);
+  }
+
+  @Benchmark
+  public SortedSet<TVShow> sortTreeSet() {
+    SortedSet<TVShow> result = new TreeSet<>(new TVShowComparator(SEARCH));
+    result.addAll(this.shows);
+    return result;
+  }
+
+  @Benchmark
+  public List<TVShow> rankTopK() {
+    return new TVShowRanking(SEARCH).rank(this.shows);
+  }
+}
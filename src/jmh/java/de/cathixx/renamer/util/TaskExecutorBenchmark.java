@@ -0,0 +1,54 @@
+package de.cathixx.renamer.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskExecutorBenchmark {
+
+  private static final Object TYPE = "bench";
+
+  private TaskExecutor executor;
+
+  @Setup
+  public void setup() {
+    this.executor = new TaskExecutor(t -> {
+    }, null, new ResultCache(100), Runnable::run);
+    CountDownLatch latch = new CountDownLatch(1);
+    this.executor.execute(TYPE, () -> "cached", r -> latch.countDown(), "key");
+    await(latch);
+  }
+
+  @Benchmark
+  public void dispatch(Blackhole bh) {
+    CountDownLatch latch = new CountDownLatch(1);
+    this.executor.execute(TYPE, () -> "result", r -> {
+      bh.consume(r);
+      latch.countDown();
+    }, TaskExecutor.NOCACHE);
+    await(latch);
+  }
+
+  @Benchmark
+  public void cacheHit(Blackhole bh) {
+    this.executor.execute(TYPE, () -> "result", bh::consume, "key");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,8 +1,17 @@
 package de.cathixx.renamer;
 
+import de.cathixx.renamer.batch.BatchOptions;
+import de.cathixx.renamer.batch.BatchRenamer;
+import de.cathixx.renamer.metrics.Metrics;
+
 public class Launcher {
 
   public static void main(String[] args) {
-    Main.main(args);
+    Metrics.getDefault().installShutdownDump();
+    if (BatchOptions.isBatch(args)) {
+      BatchRenamer.main(args);
+    } else {
+      Main.main(args);
+    }
   }
 }
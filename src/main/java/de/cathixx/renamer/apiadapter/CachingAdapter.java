@@ -0,0 +1,160 @@
+package de.cathixx.renamer.apiadapter;
+
+import de.cathixx.renamer.data.EpisodeCatalog;
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import de.cathixx.renamer.metrics.Metrics;
+import de.cathixx.renamer.util.DiskStore;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class CachingAdapter implements TVShowApiAdapter {
+
+  private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofDays(1);
+
+  private static final Duration DEFAULT_MAX_STALE = Duration.ofDays(30);
+
+  private final TVShowApiAdapter delegate;
+
+  private final String languageKey;
+
+  private final DiskStore store;
+
+  private final Duration timeToLive;
+
+  private final Duration maxStale;
+
+  private final boolean reload;
+
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(CachingAdapter::createThread);
+
+  public CachingAdapter(TVShowApiAdapter delegate, Collection<Language> languages) {
+    this(delegate, languages, new DiskStore(DiskStore.defaultDirectory("cache")), DEFAULT_TIME_TO_LIVE,
+        DEFAULT_MAX_STALE);
+  }
+
+  public CachingAdapter(TVShowApiAdapter delegate, Collection<Language> languages, DiskStore store,
+      Duration timeToLive, Duration maxStale) {
+    this.delegate = delegate;
+    this.languageKey = languages.stream().map(Language::getApiName).sorted().collect(Collectors.joining(","));
+    this.store = store;
+    this.timeToLive = timeToLive;
+    this.maxStale = maxStale;
+    this.reload = false;
+  }
+
+  private CachingAdapter(CachingAdapter cached) {
+    this.delegate = cached.delegate;
+    this.languageKey = cached.languageKey;
+    this.store = cached.store;
+    this.timeToLive = cached.timeToLive;
+    this.maxStale = cached.maxStale;
+    this.reload = true;
+  }
+
+  public TVShowApiAdapter uncached() {
+    return new CachingAdapter(this);
+  }
+
+  @Override
+  public List<TVShow> findTvShow(String name) {
+    String key = "tvshow|" + name.trim().toLowerCase() + "|" + this.languageKey;
+    return lookup(key, () -> new ArrayList<>(this.delegate.findTvShow(name)), List::isEmpty);
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language) {
+    String key = "episodes|" + tvShow.getKey() + "|" + language.getApiName();
+    return lookup(key, () -> this.delegate.findEpisodes(tvShow, language), EpisodeCatalog::isEmpty);
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    if (seasons.isEmpty()) {
+      return findEpisodes(tvShow, language);
+    }
+    String key = "episodes|" + tvShow.getKey() + "|" + language.getApiName() + "|"
+        + new TreeSet<>(seasons).stream().map(String::valueOf).collect(Collectors.joining(","));
+    return lookup(key, () -> this.delegate.findEpisodes(tvShow, language, seasons), EpisodeCatalog::isEmpty);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Serializable> T lookup(String key, Supplier<T> loader, Predicate<T> empty) {
+    Object stored = this.reload ? null : this.store.read(key);
+    if (stored instanceof CacheEntry) {
+      CacheEntry<T> entry = (CacheEntry<T>) stored;
+      Duration age = Duration.ofMillis(System.currentTimeMillis() - entry.created);
+      if (age.compareTo(this.timeToLive) <= 0) {
+        log.debug("cache hit '{}'", key);
+        Metrics.getDefault().increment("diskcache.hit");
+        return entry.value;
+      }
+      if (age.compareTo(this.timeToLive.plus(this.maxStale)) <= 0) {
+        log.debug("stale cache hit '{}', refresh in background", key);
+        Metrics.getDefault().increment("diskcache.stale");
+        refresh(key, loader, empty);
+        return entry.value;
+      }
+    }
+    log.debug("cache miss '{}'", key);
+    Metrics.getDefault().increment("diskcache.miss");
+    return load(key, loader, empty);
+  }
+
+  private <T extends Serializable> void refresh(String key, Supplier<T> loader, Predicate<T> empty) {
+    if (this.refreshing.add(key)) {
+      this.executor.execute(() -> {
+        try {
+          load(key, loader, empty);
+        } catch (RuntimeException e) {
+          log.warn("background refresh of '{}' failed: {}", key, e.toString());
+        } finally {
+          this.refreshing.remove(key);
+        }
+      });
+    }
+  }
+
+  private <T extends Serializable> T load(String key, Supplier<T> loader, Predicate<T> empty) {
+    T value = loader.get();
+    if (!empty.test(value)) {
+      this.store.write(key, new CacheEntry<>(System.currentTimeMillis(), value));
+    }
+    return value;
+  }
+
+  private static Thread createThread(Runnable r) {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static class CacheEntry<T extends Serializable> implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    private final long created;
+
+    private final T value;
+
+    CacheEntry(long created, T value) {
+      this.created = created;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package de.cathixx.renamer.apiadapter;
+
+import de.cathixx.renamer.data.EpisodeCatalog;
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import de.cathixx.renamer.metrics.Histogram;
+import de.cathixx.renamer.metrics.Metrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class HedgedAdapter implements TVShowApiAdapter {
+
+  private static final int MIN_SAMPLES = 20;
+
+  private static final long DEFAULT_HEDGE_MILLIS = 2000;
+
+  private static final long MIN_HEDGE_MILLIS = 100;
+
+  private final String primaryName;
+
+  private final TVShowApiAdapter primary;
+
+  private final String secondaryName;
+
+  private final TVShowApiAdapter secondary;
+
+  private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+
+  private final ExecutorService executor = Executors.newCachedThreadPool(HedgedAdapter::createThread);
+
+  public HedgedAdapter(String primaryName, TVShowApiAdapter primary, String secondaryName,
+      TVShowApiAdapter secondary) {
+    this.primaryName = primaryName;
+    this.primary = primary;
+    this.secondaryName = secondaryName;
+    this.secondary = secondary;
+  }
+
+  public static HedgedAdapter create(Collection<Language> languages) {
+    return new HedgedAdapter(TheMovieDBAdapter.NAME, new TheMovieDBAdapter(languages), TheTvDBAdapter.NAME,
+        new TheTvDBAdapter(languages));
+  }
+
+  @Override
+  public List<TVShow> findTvShow(String name) {
+    return hedge("search", this.primaryName, () -> this.primary.findTvShow(name),
+        () -> this.secondary.findTvShow(name), result -> !result.isEmpty());
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language) {
+    return adapter(tvShow).findEpisodes(tvShow, language);
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    return adapter(tvShow).findEpisodes(tvShow, language, seasons);
+  }
+
+  private TVShowApiAdapter adapter(TVShow tvShow) {
+    return this.secondaryName.equals(tvShow.getProvider()) ? this.secondary : this.primary;
+  }
+
+  private <T> T hedge(String operation, String owner, Callable<T> first, Callable<T> second, Predicate<T> good) {
+    String name = "hedge." + owner + "." + operation;
+    Histogram latency = this.latencies.computeIfAbsent(owner + "." + operation, k -> new Histogram());
+    CompletionService<T> completion = new ExecutorCompletionService<>(this.executor);
+    List<Future<T>> futures = new ArrayList<>();
+    long start = System.currentTimeMillis();
+    Future<T> primaryFuture = completion.submit(first);
+    futures.add(primaryFuture);
+    boolean hedged = false;
+    int pending = 1;
+    T fallback = null;
+    boolean answered = false;
+    RuntimeException failure = null;
+    try {
+      while (pending > 0 || !hedged) {
+        Future<T> done = hedged ? completion.take() : completion.poll(getHedgeDelay(latency), TimeUnit.MILLISECONDS);
+        if (done == null) {
+          log.debug("{} slower than {}ms, hedging", name, getHedgeDelay(latency));
+          Metrics.getDefault().increment(name + ".hedged");
+          futures.add(completion.submit(second));
+          hedged = true;
+          pending++;
+          continue;
+        }
+        pending--;
+        if (done == primaryFuture) {
+          latency.record(System.currentTimeMillis() - start);
+        }
+        try {
+          T result = done.get();
+          if (good.test(result)) {
+            if (done != primaryFuture) {
+              Metrics.getDefault().increment(name + ".secondaryWon");
+            }
+            return result;
+          }
+          if (!answered || done == primaryFuture) {
+            fallback = result;
+          }
+          answered = true;
+        } catch (ExecutionException e) {
+          if (failure == null || done == primaryFuture) {
+            failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                : new RuntimeException(e.getCause());
+          }
+        }
+        if (!hedged) {
+          Metrics.getDefault().increment(name + ".failover");
+          futures.add(completion.submit(second));
+          hedged = true;
+          pending++;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      for (Future<T> future : futures) {
+        if (!future.isDone()) {
+          if (future == primaryFuture) {
+            latency.record(System.currentTimeMillis() - start);
+          }
+          future.cancel(true);
+        }
+      }
+    }
+    if (answered) {
+      return fallback;
+    }
+    throw failure;
+  }
+
+  private static long getHedgeDelay(Histogram latency) {
+    if (latency.getCount() < MIN_SAMPLES) {
+      return DEFAULT_HEDGE_MILLIS;
+    }
+    return Math.max(MIN_HEDGE_MILLIS, latency.percentile(0.95));
+  }
+
+  private static Thread createThread(Runnable r) {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    return t;
+  }
+}
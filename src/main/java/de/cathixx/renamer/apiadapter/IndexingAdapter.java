@@ -0,0 +1,87 @@
+package de.cathixx.renamer.apiadapter;
+
+import de.cathixx.renamer.data.EpisodeCatalog;
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import de.cathixx.renamer.util.TVShowIndex;
+import de.cathixx.renamer.util.TVShowRanking;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class IndexingAdapter implements TVShowApiAdapter {
+
+  private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(1);
+
+  private final TVShowApiAdapter delegate;
+
+  private final TVShowIndex index;
+
+  private final Duration maxAge;
+
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(IndexingAdapter::createThread);
+
+  public IndexingAdapter(TVShowApiAdapter delegate) {
+    this(delegate, TVShowIndex.getDefault(), DEFAULT_MAX_AGE);
+  }
+
+  public IndexingAdapter(TVShowApiAdapter delegate, TVShowIndex index, Duration maxAge) {
+    this.delegate = delegate;
+    this.index = index;
+    this.maxAge = maxAge;
+  }
+
+  @Override
+  public List<TVShow> findTvShow(String name) {
+    this.index.load();
+    TVShow confident = this.index.findConfident(name);
+    if (confident != null) {
+      log.debug("local index hit '{}' -> {}", name, confident.getId());
+      if (this.index.getAge(confident) > this.maxAge.toMillis()) {
+        refresh(name);
+      }
+      return new TVShowRanking(name).rank(this.index.suggest(name));
+    }
+    List<TVShow> result = this.delegate.findTvShow(name);
+    this.index.addAll(result);
+    return result;
+  }
+
+  private void refresh(String name) {
+    if (this.refreshing.add(name)) {
+      this.executor.execute(() -> {
+        try {
+          this.index.addAll(this.delegate.findTvShow(name));
+        } catch (RuntimeException e) {
+          log.warn("could not refresh '{}' in the local index: {}", name, e.toString());
+        } finally {
+          this.refreshing.remove(name);
+        }
+      });
+    }
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language) {
+    return this.delegate.findEpisodes(tvShow, language);
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    return this.delegate.findEpisodes(tvShow, language, seasons);
+  }
+
+  private static Thread createThread(Runnable r) {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    return t;
+  }
+
+}
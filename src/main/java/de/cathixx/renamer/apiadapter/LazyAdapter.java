@@ -0,0 +1,80 @@
+package de.cathixx.renamer.apiadapter;
+
+import de.cathixx.renamer.data.EpisodeCatalog;
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import de.cathixx.renamer.metrics.Metrics;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class LazyAdapter implements TVShowApiAdapter {
+
+  private final Supplier<TVShowApiAdapter> factory;
+
+  private FutureTask<TVShowApiAdapter> delegate;
+
+  public LazyAdapter(Supplier<TVShowApiAdapter> factory) {
+    this.factory = factory;
+    this.delegate = start();
+  }
+
+  @Override
+  public List<TVShow> findTvShow(String name) {
+    return getDelegate().findTvShow(name);
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language) {
+    return getDelegate().findEpisodes(tvShow, language);
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    return getDelegate().findEpisodes(tvShow, language, seasons);
+  }
+
+  private FutureTask<TVShowApiAdapter> start() {
+    FutureTask<TVShowApiAdapter> result = new FutureTask<>(() -> {
+      long start = System.currentTimeMillis();
+      TVShowApiAdapter adapter = this.factory.get();
+      Metrics.getDefault().recordSince("startup.adapter", start);
+      return adapter;
+    });
+    createThread(result).start();
+    return result;
+  }
+
+  private TVShowApiAdapter getDelegate() {
+    FutureTask<TVShowApiAdapter> current;
+    synchronized (this) {
+      current = this.delegate;
+    }
+    try {
+      return current.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      synchronized (this) {
+        if (this.delegate == current) {
+          log.warn("adapter initialization failed, retrying: {}", e.getCause().toString());
+          this.delegate = start();
+        }
+      }
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+          : new RuntimeException(e.getCause());
+    }
+  }
+
+  private static Thread createThread(Runnable r) {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    return t;
+  }
+}
@@ -0,0 +1,39 @@
+package de.cathixx.renamer.apiadapter;
+
+import de.cathixx.renamer.data.EpisodeCatalog;
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+public class MeasuringAdapter implements TVShowApiAdapter {
+
+  private final TVShowApiAdapter delegate;
+
+  private final LongConsumer searchLatency;
+
+  public MeasuringAdapter(TVShowApiAdapter delegate, LongConsumer searchLatency) {
+    this.delegate = delegate;
+    this.searchLatency = searchLatency;
+  }
+
+  @Override
+  public List<TVShow> findTvShow(String name) {
+    long start = System.currentTimeMillis();
+    List<TVShow> result = this.delegate.findTvShow(name);
+    this.searchLatency.accept(System.currentTimeMillis() - start);
+    return result;
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language) {
+    return this.delegate.findEpisodes(tvShow, language);
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    return this.delegate.findEpisodes(tvShow, language, seasons);
+  }
+
+}
@@ -0,0 +1,26 @@
+package de.cathixx.renamer.apiadapter;
+
+public class ProviderException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int status;
+
+  public ProviderException(String message, int status) {
+    super(message);
+    this.status = status;
+  }
+
+  public ProviderException(String message, int status, Throwable cause) {
+    super(message, cause);
+    this.status = status;
+  }
+
+  public int getStatus() {
+    return this.status;
+  }
+
+  public boolean isRetryable() {
+    return this.status == 429 || this.status >= 500;
+  }
+}
@@ -0,0 +1,163 @@
+package de.cathixx.renamer.apiadapter;
+
+import de.cathixx.renamer.metrics.Metrics;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class RequestLimiter {
+
+  private static final int MAX_ATTEMPTS = 5;
+
+  private static final long BASE_BACKOFF_MILLIS = 250;
+
+  private static final long MAX_BACKOFF_MILLIS = 8000;
+
+  private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final String name;
+
+  private final double permitsPerSecond;
+
+  private final double burst;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private double tokens;
+
+  private long lastRefill = System.nanoTime();
+
+  private double limit;
+
+  private int inFlight;
+
+  private int queued;
+
+  private long lastDecrease = System.nanoTime() - DECREASE_INTERVAL_NANOS;
+
+  private long throttledCount;
+
+  public RequestLimiter(String name, double permitsPerSecond, int burst, int initialLimit, int minLimit,
+      int maxLimit) {
+    this.name = name;
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst;
+    this.tokens = burst;
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+  }
+
+  public <V> V execute(Callable<V> request) throws Exception {
+    for (int attempt = 1; ; attempt++) {
+      acquire();
+      try {
+        V result = request.call();
+        onSuccess();
+        return result;
+      } catch (ProviderException e) {
+        if (!e.isRetryable()) {
+          throw e;
+        }
+        onThrottled(e);
+        if (attempt >= MAX_ATTEMPTS) {
+          log.warn("{} request failed after {} attempts: {}", this.name, attempt, e.getMessage());
+          throw e;
+        }
+      } finally {
+        release();
+      }
+      backoff(attempt);
+    }
+  }
+
+  public synchronized int getLimit() {
+    return (int) this.limit;
+  }
+
+  public synchronized int getInFlight() {
+    return this.inFlight;
+  }
+
+  public synchronized int getQueueDepth() {
+    return this.queued;
+  }
+
+  public synchronized long getThrottledCount() {
+    return this.throttledCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("%s[limit=%d, inFlight=%d, queued=%d, throttled=%d]", this.name, (int) this.limit,
+        this.inFlight, this.queued, this.throttledCount);
+  }
+
+  private void acquire() throws InterruptedException {
+    synchronized (this) {
+      this.queued++;
+    }
+    try {
+      takeToken();
+      synchronized (this) {
+        while (this.inFlight >= (int) this.limit) {
+          wait();
+        }
+        this.inFlight++;
+      }
+    } finally {
+      synchronized (this) {
+        this.queued--;
+      }
+    }
+  }
+
+  private void takeToken() throws InterruptedException {
+    while (true) {
+      long waitNanos;
+      synchronized (this) {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.burst, this.tokens + (now - this.lastRefill) * this.permitsPerSecond / 1e9);
+        this.lastRefill = now;
+        if (this.tokens >= 1) {
+          this.tokens--;
+          return;
+        }
+        waitNanos = (long) ((1 - this.tokens) * 1e9 / this.permitsPerSecond);
+      }
+      TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1));
+    }
+  }
+
+  private synchronized void release() {
+    this.inFlight--;
+    notifyAll();
+  }
+
+  private synchronized void onSuccess() {
+    if (this.limit < this.maxLimit) {
+      this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+    }
+  }
+
+  private synchronized void onThrottled(ProviderException e) {
+    this.throttledCount++;
+    Metrics.getDefault().increment("limiter." + this.name + ".throttled");
+    long now = System.nanoTime();
+    if (now - this.lastDecrease >= DECREASE_INTERVAL_NANOS) {
+      this.lastDecrease = now;
+      this.limit = Math.max(this.minLimit, this.limit / 2);
+      this.tokens = 0;
+      log.info("{} throttled ({}), concurrency limit reduced to {}", this.name, e.getStatus(), (int) this.limit);
+    }
+  }
+
+  private static void backoff(int attempt) throws InterruptedException {
+    long max = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+    Thread.sleep(ThreadLocalRandom.current().nextLong(max / 2, max + 1));
+  }
+}
@@ -1,14 +1,19 @@
 package de.cathixx.renamer.apiadapter;
 
-import de.cathixx.renamer.data.Episode;
+import de.cathixx.renamer.data.EpisodeCatalog;
 import de.cathixx.renamer.data.Language;
 import de.cathixx.renamer.data.TVShow;
-import java.util.SortedSet;
+import java.util.List;
+import java.util.Set;
 
 public interface TVShowApiAdapter {
 
-  SortedSet<TVShow> findTvShow(String name);
+  List<TVShow> findTvShow(String name);
 
-  SortedSet<Episode> findEpisodes(TVShow tvShow, Language language);
+  EpisodeCatalog findEpisodes(TVShow tvShow, Language language);
+
+  default EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    return findEpisodes(tvShow, language);
+  }
 
 }
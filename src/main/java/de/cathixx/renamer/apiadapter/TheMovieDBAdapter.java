@@ -1,26 +1,37 @@
 package de.cathixx.renamer.apiadapter;
 
-import de.cathixx.renamer.data.Episode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.cathixx.renamer.data.EpisodeCatalog;
 import de.cathixx.renamer.data.Language;
 import de.cathixx.renamer.data.TVShow;
 import de.cathixx.renamer.key.ApiKeyProvider;
-import de.cathixx.renamer.util.TVShowComparator;
-import info.movito.themoviedbapi.TmdbApi;
+import de.cathixx.renamer.metrics.Metrics;
+import de.cathixx.renamer.metrics.ProviderRequestEvent;
+import de.cathixx.renamer.util.SingleFlight;
+import de.cathixx.renamer.util.TVShowRanking;
 import info.movito.themoviedbapi.TvResultsPage;
-import info.movito.themoviedbapi.model.tv.TvEpisode;
-import info.movito.themoviedbapi.model.tv.TvSeason;
 import info.movito.themoviedbapi.model.tv.TvSeries;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.SortedSet;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,31 +40,55 @@ import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class TheMovieDBAdapter implements TVShowApiAdapter {
 
+  public static final String NAME = "TMDB";
+
   private static final String BANNER_URL = "https://image.tmdb.org/t/p/w400";
 
+  private static final String API_URL = "https://api.themoviedb.org/3";
+
+  private static final int MAX_APPENDED_SEASONS = 20;
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
   private final Collection<Language> languages;
 
   private final ExecutorService executor = Executors.newCachedThreadPool(TheMovieDBAdapter::createThread);
 
-  private final TmdbApi tmdbApi;
+  private final SingleFlight requests = new SingleFlight(this.executor);
+
+  private final RequestLimiter limiter = new RequestLimiter(NAME, 40, 20, 8, 1, 32);
+
+  private final HttpClient httpClient = HttpClient.newBuilder().executor(this.executor)
+      .connectTimeout(Duration.ofSeconds(10)).build();
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final String apiKey;
 
   public TheMovieDBAdapter(Collection<Language> languages) {
     this.languages = languages;
-    this.tmdbApi = new TmdbApi(ApiKeyProvider.getMovieDbKey());
+    this.apiKey = ApiKeyProvider.getMovieDbKey();
+  }
+
+  public RequestLimiter getLimiter() {
+    return this.limiter;
   }
 
   @Override
-  public SortedSet<TVShow> findTvShow(String name) {
+  public List<TVShow> findTvShow(String name) {
     log.info("request for TV-show '{}'", name);
+    Map<Language, Future<Collection<TvSeries>>> futurs = createGeneralSeriesFutures(name);
     try {
-      Map<Language, Future<Collection<TvSeries>>> futurs = createGeneralSeriesFutures(name);
       Map<Integer, Map<Language, TvSeries>> seriesResult = resolveGeneralSeriesFutures(futurs);
       return convertData(name, seriesResult);
+    } catch (InterruptedException e) {
+      throw cancel(futurs.values(), e);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -62,7 +97,8 @@ public class TheMovieDBAdapter implements TVShowApiAdapter {
   private Map<Language, Future<Collection<TvSeries>>> createGeneralSeriesFutures(String name) {
     Map<Language, Future<Collection<TvSeries>>> futurs = new HashMap<>();
     for (Language language : this.languages) {
-      Future<Collection<TvSeries>> future = this.executor.submit(() -> findSeries(name, language));
+      Future<Collection<TvSeries>> future = this.requests.submit(List.of("search", name, language.getApiName()),
+          () -> findSeries(name, language));
       futurs.put(language, future);
     }
     return futurs;
@@ -84,88 +120,148 @@ public class TheMovieDBAdapter implements TVShowApiAdapter {
     return seriesResult;
   }
 
-  private static SortedSet<TVShow> convertData(String name, Map<Integer, Map<Language, TvSeries>> seriesResult) {
-    SortedSet<TVShow> result = new TreeSet<>(new TVShowComparator(name));
+  private static List<TVShow> convertData(String name, Map<Integer, Map<Language, TvSeries>> seriesResult) {
+    List<TVShow> result = new ArrayList<>(seriesResult.size());
     for (Map<Language, TvSeries> seriess : seriesResult.values()) {
       TvSeries series = seriess.values().iterator().next();
       Integer year = parseYear(series.getFirstAirDate());
       String bannerURL = Optional.ofNullable(series.getPosterPath()).map(b -> BANNER_URL + b).orElse(null);
-      TVShow show = new TVShow(series.getId(), year, createNames(seriess), bannerURL, Collections.emptyList(),
+      TVShow show = new TVShow(NAME, series.getId(), year, createNames(seriess), bannerURL, Collections.emptyList(),
           series.getNumberOfSeasons(), series.getPopularity());
       result.add(show);
     }
-    return result;
+    return new TVShowRanking(name).rank(result);
   }
 
-  private Collection<TvSeries> findSeries(String name, Language language) {
+  private Collection<TvSeries> findSeries(String name, Language language) throws Exception {
+    ProviderRequestEvent event = ProviderRequestEvent.start(NAME, "search", language.getApiName());
     long start = System.currentTimeMillis();
-    Collection<TvSeries> result = Collections.emptyList();
+    boolean success = false;
+    URI uri = URI.create(API_URL + "/search/tv?api_key=" + encode(this.apiKey) + "&query=" + encode(name)
+        + "&language=" + encode(language.getApiName()));
     try {
-      String lang = language.getApiName();
-      TvResultsPage tvResult = this.tmdbApi.getSearch().searchTv(name, lang, 0);
-      result = tvResult.getResults();
-    } catch (RuntimeException e) {
-      log.error(e.toString());
+      TvResultsPage tvResult = this.mapper.readValue(get(event, uri, "search '" + name + "'"), TvResultsPage.class);
+      success = true;
+      return tvResult.getResults() != null ? tvResult.getResults() : Collections.emptyList();
+    } finally {
+      long time = System.currentTimeMillis() - start;
+      log.debug("request for series ({}ms) [{}] {}", time, language.getApiName(), name);
+      record(event, time, success);
     }
-    long time = System.currentTimeMillis() - start;
-    log.debug("request for series ({}ms) [{}] {}", time, language.getApiName(), name);
-    return result;
   }
 
   @Override
-  public SortedSet<Episode> findEpisodes(TVShow tvShow, Language language) {
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language) {
     log.info("request for episodes '{}'", tvShow.getName(language));
+    List<Future<?>> pending = new ArrayList<>();
     try {
-      int last = 1;
-      try {
-        TvSeries detail = this.tmdbApi.getTvSeries().getSeries(tvShow.getId(), language.getApiName());
-        last = detail.getNumberOfSeasons();
-      } catch (RuntimeException e) {
-        log.error(e.toString());
+      Future<JsonNode> first = createSeasonsFuture(tvShow, language, seasonRange(1));
+      pending.add(first);
+      List<JsonNode> responses = new ArrayList<>();
+      responses.add(first.get());
+      int last = responses.get(0).path("number_of_seasons").asInt(1);
+      List<Future<JsonNode>> futures = new ArrayList<>();
+      for (int i = 1 + MAX_APPENDED_SEASONS; i <= last; i += MAX_APPENDED_SEASONS) {
+        futures.add(createSeasonsFuture(tvShow, language, seasonRange(i)));
       }
-      List<Future<TvSeason>> futures = new ArrayList<>();
-      for (int i = 1; i <= last; i++) {
-        futures.add(createEpisodeFuture(tvShow, language, i));
+      pending.addAll(futures);
+      for (Future<JsonNode> future : futures) {
+        responses.add(future.get());
       }
-      List<TvEpisode> episodes = new ArrayList<>();
-      for (Future<TvSeason> future : futures) {
-        if (future.get() != null) {
-          episodes.addAll(future.get().getEpisodes());
-        }
+      return convertData(language, responses, tvShow);
+    } catch (InterruptedException e) {
+      throw cancel(pending, e);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    if (seasons.isEmpty()) {
+      return findEpisodes(tvShow, language);
+    }
+    log.info("request for seasons {} of '{}'", seasons, tvShow.getName(language));
+    List<Integer> sorted = new ArrayList<>(new TreeSet<>(seasons));
+    List<Future<JsonNode>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < sorted.size(); i += MAX_APPENDED_SEASONS) {
+        List<Integer> chunk = List.copyOf(sorted.subList(i, Math.min(sorted.size(), i + MAX_APPENDED_SEASONS)));
+        futures.add(createSeasonsFuture(tvShow, language, chunk));
+      }
+      List<JsonNode> responses = new ArrayList<>();
+      for (Future<JsonNode> future : futures) {
+        responses.add(future.get());
       }
-      return convertData(language, episodes, tvShow);
+      return convertData(language, responses, tvShow);
+    } catch (InterruptedException e) {
+      throw cancel(futures, e);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
-  private Future<TvSeason> createEpisodeFuture(TVShow tvShow, Language language, final int i) {
-    return this.executor.submit(() -> getEpisodes(tvShow, language, i));
+  private Future<JsonNode> createSeasonsFuture(TVShow tvShow, Language language, List<Integer> seasons) {
+    return this.requests.submit(List.of("seasons", tvShow.getId(), seasons, language.getApiName()),
+        () -> getSeasons(tvShow, language, seasons));
+  }
+
+  private static List<Integer> seasonRange(int first) {
+    return IntStream.range(first, first + MAX_APPENDED_SEASONS).boxed().collect(Collectors.toList());
   }
 
-  private TvSeason getEpisodes(TVShow tvShow, Language language, int season) {
+  private JsonNode getSeasons(TVShow tvShow, Language language, List<Integer> seasonNumbers) throws Exception {
+    ProviderRequestEvent event = ProviderRequestEvent.start(NAME, "seasons", language.getApiName());
     long start = System.currentTimeMillis();
-    TvSeason result = null;
+    boolean success = false;
+    String seasons = seasonNumbers.stream().map(i -> "season/" + i).collect(Collectors.joining(","));
+    URI uri = URI.create(API_URL + "/tv/" + tvShow.getId() + "?api_key=" + encode(this.apiKey) + "&language="
+        + encode(language.getApiName()) + "&append_to_response=" + encode(seasons));
     try {
-      result = this.tmdbApi.getTvSeasons().getSeason(tvShow.getId(), season, language.getApiName());
-    } catch (RuntimeException e) {
-      log.error(e.toString());
+      JsonNode result = this.mapper.readTree(get(event, uri, "TV-show " + tvShow.getId()));
+      success = true;
+      return result;
+    } finally {
+      long time = System.currentTimeMillis() - start;
+      log.debug("request for seasons {} ({}ms) [{}] {}", seasonNumbers, time, language.getApiName(),
+          tvShow.getName(language));
+      record(event, time, success);
     }
-    long time = System.currentTimeMillis() - start;
-    log.debug("request for episodes ({}ms) [{}] {}", time, language.getApiName(), tvShow.getName(language));
-    return result;
   }
 
-  private static SortedSet<Episode> convertData(Language language, List<TvEpisode> episodes, TVShow tvShow) {
-    SortedSet<Episode> result = new TreeSet<>();
-    for (TvEpisode episode : episodes) {
-      Map<Language, String> names = new HashMap<>();
-      names.put(language, episode.getName());
-      Episode episodeInfo = new Episode(episode.getId(), episode.getSeasonNumber(), episode.getEpisodeNumber(),
-          tvShow.getNames(), names);
-      result.add(episodeInfo);
+  private byte[] get(ProviderRequestEvent event, URI uri, String subject) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).header("Accept", "application/json")
+        .GET().build();
+    return this.limiter.execute(() -> {
+      HttpResponse<byte[]> response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      event.setStatus(response.statusCode());
+      if (response.statusCode() != 200) {
+        throw new ProviderException("TMDB responded " + response.statusCode() + " for " + subject,
+            response.statusCode());
+      }
+      return response.body();
+    });
+  }
+
+  private static EpisodeCatalog convertData(Language language, List<JsonNode> responses, TVShow tvShow) {
+    EpisodeCatalog.Builder result = EpisodeCatalog.builder(language, tvShow.getNames());
+    for (JsonNode response : responses) {
+      Iterator<Map.Entry<String, JsonNode>> fields = response.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        if (field.getKey().startsWith("season/")) {
+          for (JsonNode episode : field.getValue().path("episodes")) {
+            result.add(episode.path("id").asInt(), episode.path("season_number").asInt(),
+                episode.path("episode_number").asInt(), episode.path("name").asText(null));
+          }
+        }
+      }
     }
-    return result;
+    return result.build();
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
   }
 
   private static Map<Language, String> createNames(Map<Language, TvSeries> seriess) {
@@ -197,6 +293,23 @@ public class TheMovieDBAdapter implements TVShowApiAdapter {
     return value;
   }
 
+  private static CancellationException cancel(Collection<? extends Future<?>> futures, InterruptedException e) {
+    futures.forEach(f -> f.cancel(true));
+    Thread.currentThread().interrupt();
+    CancellationException result = new CancellationException("request cancelled");
+    result.initCause(e);
+    return result;
+  }
+
+  private static void record(ProviderRequestEvent event, long time, boolean success) {
+    event.finish(success);
+    String name = "provider.tmdb." + event.getEndpoint() + "." + event.getLanguage();
+    Metrics.getDefault().record(name, time);
+    if (!success) {
+      Metrics.getDefault().increment(name + ".failures");
+    }
+  }
+
   private static Thread createThread(Runnable r) {
     Thread t = Executors.defaultThreadFactory().newThread(r);
     t.setDaemon(true);
@@ -5,23 +5,28 @@ import com.uwetrottmann.thetvdb.entities.EpisodesResponse;
 import com.uwetrottmann.thetvdb.entities.Series;
 import com.uwetrottmann.thetvdb.entities.SeriesResponse;
 import com.uwetrottmann.thetvdb.entities.SeriesResultsResponse;
-import de.cathixx.renamer.data.Episode;
+import de.cathixx.renamer.data.EpisodeCatalog;
 import de.cathixx.renamer.data.Language;
 import de.cathixx.renamer.data.TVShow;
 import de.cathixx.renamer.key.ApiKeyProvider;
-import de.cathixx.renamer.util.TVShowComparator;
-import java.io.IOException;
+import de.cathixx.renamer.metrics.Metrics;
+import de.cathixx.renamer.metrics.ProviderRequestEvent;
+import de.cathixx.renamer.util.SingleFlight;
+import de.cathixx.renamer.util.TVShowRanking;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -36,27 +41,42 @@ import retrofit2.Response;
 @Slf4j
 public class TheTvDBAdapter implements TVShowApiAdapter {
 
+  public static final String NAME = "TheTVDB";
+
   private static final String BANNER_URL = "https://www.thetvdb.com/banners/";
 
   private final TheTvdb tvDB = new TheTvdb(ApiKeyProvider.getTvDbKey());
 
   private final ExecutorService executor = Executors.newCachedThreadPool(TheTvDBAdapter::createThread);
 
+  private final SingleFlight requests = new SingleFlight(this.executor);
+
+  private final RequestLimiter limiter = new RequestLimiter(NAME, 20, 10, 4, 1, 16);
+
   private final Collection<Language> languages;
 
   public TheTvDBAdapter(Collection<Language> languages) {
     this.languages = languages;
   }
 
+  public RequestLimiter getLimiter() {
+    return this.limiter;
+  }
+
   @Override
-  public SortedSet<TVShow> findTvShow(String name) {
+  public List<TVShow> findTvShow(String name) {
     log.info("request for TV-show '{}'", name);
+    List<Future<?>> pending = new ArrayList<>();
     try {
       Map<Language, Future<Collection<Series>>> futurs = createGeneralSeriesFutures(name);
+      pending.addAll(futurs.values());
       Map<Integer, Map<Language, Series>> seriesResult = resolveGeneralSeriesFutures(futurs);
       Map<Integer, Map<Language, Future<Series>>> missing = createMissingFutures(seriesResult);
+      missing.values().forEach(m -> pending.addAll(m.values()));
       resolveMissingFutures(seriesResult, missing);
       return convertData(name, seriesResult);
+    } catch (InterruptedException e) {
+      throw cancel(pending, e);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -65,7 +85,8 @@ public class TheTvDBAdapter implements TVShowApiAdapter {
   private Map<Language, Future<Collection<Series>>> createGeneralSeriesFutures(String name) {
     Map<Language, Future<Collection<Series>>> futurs = new HashMap<>();
     for (Language language : this.languages) {
-      Future<Collection<Series>> future = this.executor.submit(() -> findSeries(name, language));
+      Future<Collection<Series>> future = this.requests.submit(List.of("search", name, language.getApiName()),
+          () -> findSeries(name, language));
       futurs.put(language, future);
     }
     return futurs;
@@ -95,7 +116,8 @@ public class TheTvDBAdapter implements TVShowApiAdapter {
       Series series = value.values().iterator().next();
       for (Language language : this.languages) {
         if (!value.containsKey(language)) {
-          Future<Series> future = this.executor.submit(() -> getSeries(series, language));
+          Future<Series> future = this.requests.submit(List.of("series", series.id, language.getApiName()),
+              () -> getSeries(series, language));
           Map<Language, Future<Series>> map = getOrCreate(missing, series.id, HashMap::new);
           map.put(language, future);
         }
@@ -118,23 +140,27 @@ public class TheTvDBAdapter implements TVShowApiAdapter {
     }
   }
 
-  private static SortedSet<TVShow> convertData(String name, Map<Integer, Map<Language, Series>> seriesResult) {
-    SortedSet<TVShow> result = new TreeSet<>(new TVShowComparator(name));
+  private static List<TVShow> convertData(String name, Map<Integer, Map<Language, Series>> seriesResult) {
+    List<TVShow> result = new ArrayList<>(seriesResult.size());
     for (Map<Language, Series> seriess : seriesResult.values()) {
       Series series = seriess.values().iterator().next();
       Integer year = getFirstAired(series).map(LocalDate::getYear).orElse(null);
       String bannerURL = Optional.ofNullable(series.banner).map(b -> BANNER_URL + b).orElse(null);
-      TVShow show = new TVShow(series.id, year, createNames(seriess), bannerURL, series.aliases, 0, 0);
+      TVShow show = new TVShow(NAME, series.id, year, createNames(seriess), bannerURL, series.aliases, 0, 0);
       result.add(show);
     }
-    return result;
+    return new TVShowRanking(name).rank(result);
   }
 
-  private Collection<Series> findSeries(String name, Language language) throws IOException {
+  private Collection<Series> findSeries(String name, Language language) throws Exception {
+    ProviderRequestEvent event = ProviderRequestEvent.start(NAME, "search", language.getApiName());
     long start = System.currentTimeMillis();
+    boolean success = false;
     try {
       String lang = language.getApiName();
-      Response<SeriesResultsResponse> response = this.tvDB.search().series(name, null, null, null, lang).execute();
+      Response<SeriesResultsResponse> response = request(event,
+          () -> this.tvDB.search().series(name, null, null, null, lang).execute());
+      success = true;
       if (response.isSuccessful()) {
         return response.body().data;
       }
@@ -142,13 +168,18 @@ public class TheTvDBAdapter implements TVShowApiAdapter {
     } finally {
       long time = System.currentTimeMillis() - start;
       log.debug("request for series ({}ms) [{}] {}", time, language.getApiName(), name);
+      record(event, time, success);
     }
   }
 
-  private Series getSeries(Series series, Language language) throws IOException {
+  private Series getSeries(Series series, Language language) throws Exception {
+    ProviderRequestEvent event = ProviderRequestEvent.start(NAME, "series", language.getApiName());
     long start = System.currentTimeMillis();
+    boolean success = false;
     try {
-      Response<SeriesResponse> response = this.tvDB.series().series(series.id, language.getApiName()).execute();
+      Response<SeriesResponse> response = request(event,
+          () -> this.tvDB.series().series(series.id, language.getApiName()).execute());
+      success = true;
       if (response.isSuccessful()) {
         return response.body().data;
       }
@@ -156,42 +187,96 @@ public class TheTvDBAdapter implements TVShowApiAdapter {
     } finally {
       long time = System.currentTimeMillis() - start;
       log.debug("request for series ({}ms) [{}] {}", time, language.getApiName(), series.seriesName);
+      record(event, time, success);
     }
   }
 
   @Override
-  public SortedSet<Episode> findEpisodes(TVShow tvShow, Language language) {
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language) {
     log.info("request for episodes '{}'", tvShow.getName(language));
+    List<Future<EpisodesResponse>> futures = new ArrayList<>();
     try {
-      List<Future<EpisodesResponse>> futures = new ArrayList<>();
-      Future<EpisodesResponse> firstFuture = createEpisodeFuture(tvShow, language, 1);
+      Future<EpisodesResponse> firstFuture = createEpisodeFuture(tvShow, language, null, 1);
       futures.add(firstFuture);
-      Integer last = firstFuture.get().links.last;
+      EpisodesResponse first = firstFuture.get();
+      int last = first != null && first.links != null && first.links.last != null ? first.links.last : 1;
       for (int i = 2; i <= last; i++) {
-        futures.add(createEpisodeFuture(tvShow, language, i));
+        futures.add(createEpisodeFuture(tvShow, language, null, i));
+      }
+      List<com.uwetrottmann.thetvdb.entities.Episode> episodes = new ArrayList<>();
+      for (Future<EpisodesResponse> future : futures) {
+        EpisodesResponse response = future.get();
+        if (response != null && response.data != null) {
+          episodes.addAll(response.data);
+        }
+      }
+      episodes.removeIf(e -> e.airedSeason == null);
+      episodes.removeIf(e -> e.airedEpisodeNumber == null);
+      episodes.removeIf(e -> e.episodeName == null);
+      return convertData(language, episodes, tvShow);
+    } catch (InterruptedException e) {
+      throw cancel(futures, e);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public EpisodeCatalog findEpisodes(TVShow tvShow, Language language, Set<Integer> seasons) {
+    if (seasons.isEmpty()) {
+      return findEpisodes(tvShow, language);
+    }
+    log.info("request for seasons {} of '{}'", seasons, tvShow.getName(language));
+    List<Future<EpisodesResponse>> futures = new ArrayList<>();
+    try {
+      Map<Integer, Future<EpisodesResponse>> firstFutures = new TreeMap<>();
+      for (Integer season : seasons) {
+        Future<EpisodesResponse> future = createEpisodeFuture(tvShow, language, season, 1);
+        firstFutures.put(season, future);
+        futures.add(future);
+      }
+      for (Map.Entry<Integer, Future<EpisodesResponse>> entry : firstFutures.entrySet()) {
+        EpisodesResponse first = entry.getValue().get();
+        int last = first != null && first.links != null && first.links.last != null ? first.links.last : 1;
+        for (int i = 2; i <= last; i++) {
+          futures.add(createEpisodeFuture(tvShow, language, entry.getKey(), i));
+        }
       }
       List<com.uwetrottmann.thetvdb.entities.Episode> episodes = new ArrayList<>();
       for (Future<EpisodesResponse> future : futures) {
-        episodes.addAll(future.get().data);
+        EpisodesResponse response = future.get();
+        if (response != null && response.data != null) {
+          episodes.addAll(response.data);
+        }
       }
       episodes.removeIf(e -> e.airedSeason == null);
       episodes.removeIf(e -> e.airedEpisodeNumber == null);
       episodes.removeIf(e -> e.episodeName == null);
       return convertData(language, episodes, tvShow);
+    } catch (InterruptedException e) {
+      throw cancel(futures, e);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
-  private Future<EpisodesResponse> createEpisodeFuture(TVShow tvShow, Language language, final int i) {
-    return this.executor.submit(() -> getEpisodes(tvShow, language, i));
+  private Future<EpisodesResponse> createEpisodeFuture(TVShow tvShow, Language language, Integer season,
+      final int i) {
+    return this.requests.submit(Arrays.asList("episodes", tvShow.getId(), season, i, language.getApiName()),
+        () -> getEpisodes(tvShow, language, season, i));
   }
 
-  private EpisodesResponse getEpisodes(TVShow tvShow, Language language, int page) throws IOException {
+  private EpisodesResponse getEpisodes(TVShow tvShow, Language language, Integer season, int page)
+      throws Exception {
+    ProviderRequestEvent event = ProviderRequestEvent.start(NAME, "episodes", language.getApiName());
     long start = System.currentTimeMillis();
+    boolean success = false;
     try {
-      Response<EpisodesResponse> resp = this.tvDB.series().episodes(tvShow.getId(), page, language.getApiName())
-          .execute();
+      Response<EpisodesResponse> resp = request(event, () -> season == null
+          ? this.tvDB.series().episodes(tvShow.getId(), page, language.getApiName()).execute()
+          : this.tvDB.series().episodesQuery(tvShow.getId(), null, season, null, null, null, null, page,
+              language.getApiName()).execute());
+      success = true;
       if (resp.isSuccessful()) {
         return resp.body();
       }
@@ -199,20 +284,29 @@ public class TheTvDBAdapter implements TVShowApiAdapter {
     } finally {
       long time = System.currentTimeMillis() - start;
       log.debug("request for episodes ({}ms) [{}] {}", time, language.getApiName(), tvShow.getName(language));
+      record(event, time, success);
     }
   }
 
-  private static SortedSet<Episode> convertData(Language language,
+  private static EpisodeCatalog convertData(Language language,
       List<com.uwetrottmann.thetvdb.entities.Episode> episodes, TVShow tvShow) {
-    SortedSet<Episode> result = new TreeSet<>();
+    EpisodeCatalog.Builder result = EpisodeCatalog.builder(language, tvShow.getNames());
     for (com.uwetrottmann.thetvdb.entities.Episode episode : episodes) {
-      Map<Language, String> names = new HashMap<>();
-      names.put(language, episode.episodeName);
-      Episode episodeInfo = new Episode(episode.id, episode.airedSeason, episode.airedEpisodeNumber, tvShow.getNames(),
-          names);
-      result.add(episodeInfo);
+      result.add(episode.id, episode.airedSeason, episode.airedEpisodeNumber, episode.episodeName);
     }
-    return result;
+    return result.build();
+  }
+
+  private <T> Response<T> request(ProviderRequestEvent event, Callable<Response<T>> call) throws Exception {
+    return this.limiter.execute(() -> {
+      Response<T> response = call.call();
+      event.setStatus(response.code());
+      if (response.code() == 429 || response.code() >= 500) {
+        throw new ProviderException("TheTVDB responded " + response.code() + " " + response.message(),
+            response.code());
+      }
+      return response;
+    });
   }
 
   private static Map<Language, String> createNames(Map<Language, Series> seriess) {
@@ -253,6 +347,23 @@ public class TheTvDBAdapter implements TVShowApiAdapter {
     return value;
   }
 
+  private static CancellationException cancel(Collection<? extends Future<?>> futures, InterruptedException e) {
+    futures.forEach(f -> f.cancel(true));
+    Thread.currentThread().interrupt();
+    CancellationException result = new CancellationException("request cancelled");
+    result.initCause(e);
+    return result;
+  }
+
+  private static void record(ProviderRequestEvent event, long time, boolean success) {
+    event.finish(success);
+    String name = "provider.tvdb." + event.getEndpoint() + "." + event.getLanguage();
+    Metrics.getDefault().record(name, time);
+    if (!success) {
+      Metrics.getDefault().increment(name + ".failures");
+    }
+  }
+
   private static Thread createThread(Runnable r) {
     Thread t = Executors.defaultThreadFactory().newThread(r);
     t.setDaemon(true);
@@ -0,0 +1,84 @@
+package de.cathixx.renamer.batch;
+
+import java.io.File;
+import lombok.Getter;
+
+@Getter
+public class BatchOptions {
+
+  public static final String BATCH_ARG = "--batch";
+
+  private File libraryRoot;
+
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  private String language;
+
+  private boolean includeTitle;
+
+  private boolean dryRun;
+
+  private File output;
+
+  private boolean undo;
+
+  private boolean watch;
+
+  public static boolean isBatch(String[] args) {
+    return args.length > 0 && BATCH_ARG.equals(args[0]);
+  }
+
+  public static BatchOptions parse(String[] args) {
+    BatchOptions result = new BatchOptions();
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case BATCH_ARG:
+          break;
+        case "--parallelism":
+          result.parallelism = Integer.parseInt(value(args, ++i, arg));
+          break;
+        case "--language":
+          result.language = value(args, ++i, arg);
+          break;
+        case "--include-title":
+          result.includeTitle = true;
+          break;
+        case "--dry-run":
+          result.dryRun = true;
+          break;
+        case "--watch":
+          result.watch = true;
+          break;
+        case "--undo":
+          result.undo = true;
+          break;
+        case "--output":
+          result.output = new File(value(args, ++i, arg));
+          break;
+        default:
+          if (arg.startsWith("--") || result.libraryRoot != null) {
+            throw new IllegalArgumentException("unknown argument '" + arg + "'");
+          }
+          result.libraryRoot = new File(arg);
+      }
+    }
+    if (result.undo) {
+      return result;
+    }
+    if (result.libraryRoot == null || !result.libraryRoot.isDirectory()) {
+      throw new IllegalArgumentException("library root directory missing or not a directory");
+    }
+    if (result.parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    return result;
+  }
+
+  private static String value(String[] args, int index, String arg) {
+    if (index >= args.length) {
+      throw new IllegalArgumentException("missing value for '" + arg + "'");
+    }
+    return args[index];
+  }
+}
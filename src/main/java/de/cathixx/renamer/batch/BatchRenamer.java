@@ -0,0 +1,298 @@
+package de.cathixx.renamer.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.cathixx.renamer.Main;
+import de.cathixx.renamer.apiadapter.CachingAdapter;
+import de.cathixx.renamer.apiadapter.HedgedAdapter;
+import de.cathixx.renamer.apiadapter.IndexingAdapter;
+import de.cathixx.renamer.apiadapter.TVShowApiAdapter;
+import de.cathixx.renamer.batch.ShowResult.Status;
+import de.cathixx.renamer.data.Episode;
+import de.cathixx.renamer.data.EpisodeCatalog;
+import de.cathixx.renamer.data.EpisodeTableItem;
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import de.cathixx.renamer.util.LanguageSupport;
+import de.cathixx.renamer.util.Pipeline;
+import de.cathixx.renamer.util.RenameResult;
+import de.cathixx.renamer.util.TVShowFileSupport;
+import de.cathixx.renamer.util.TVShowRanking;
+import de.cathixx.renamer.util.TVShowRenamer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class BatchRenamer {
+
+  private static final int DISK_WORKERS = 4;
+
+  private static final int CPU_WORKERS = Runtime.getRuntime().availableProcessors();
+
+  private static final int QUEUE_CAPACITY = 32;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final BatchOptions options;
+
+  private final TVShowApiAdapter tvAdapter;
+
+  private final Language language;
+
+  private boolean sessionStarted;
+
+  public BatchRenamer(BatchOptions options, TVShowApiAdapter tvAdapter, Language language) {
+    this.options = options;
+    this.tvAdapter = tvAdapter;
+    this.language = language;
+  }
+
+  public static void main(String[] args) {
+    BatchOptions options;
+    try {
+      options = BatchOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: --batch <library root> [--parallelism <n>] [--language <api name>] "
+          + "[--include-title] [--dry-run] [--output <file>] [--watch] | --batch --undo");
+      System.exit(2);
+      return;
+    }
+    if (options.isUndo()) {
+      int reverted = TVShowRenamer.undoLastSession();
+      writeSummary(options, toJson(Map.of("reverted", reverted)));
+      System.exit(0);
+      return;
+    }
+    ResourceBundle res = ResourceBundle.getBundle(Main.BUNDLE, Locale.GERMAN);
+    List<Language> languages = LanguageSupport.getLanguages(res);
+    Language language = languages.stream().filter(l -> l.getApiName().equals(options.getLanguage())).findFirst()
+        .orElse(languages.get(0));
+    CachingAdapter cache = new CachingAdapter(HedgedAdapter.create(languages), languages);
+    TVShowApiAdapter adapter = new IndexingAdapter(cache);
+    long start = System.currentTimeMillis();
+    List<ShowResult> results = new BatchRenamer(options, adapter, language).run();
+    Map<String, Object> summary = createSummary(results, System.currentTimeMillis() - start);
+    writeSummary(options, toJson(summary));
+    if (options.isWatch()) {
+      watch(options, adapter, cache.uncached(), language, results);
+    }
+    boolean failed = results.stream().anyMatch(r -> r.getStatus() == Status.FAILED || r.getStatus() == Status.ERROR);
+    System.exit(failed ? 1 : 0);
+  }
+
+  private static void watch(BatchOptions options, TVShowApiAdapter adapter, TVShowApiAdapter uncachedAdapter,
+      Language language, List<ShowResult> results) {
+    WatchDaemon daemon = new WatchDaemon(options, adapter, uncachedAdapter, language);
+    daemon.remember(results);
+    try {
+      daemon.run();
+    } catch (IOException e) {
+      log.error("watching '{}' failed", options.getLibraryRoot(), e);
+      System.exit(1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public List<ShowResult> run() {
+    List<File> showDirectories = discoverShowDirectories(this.options.getLibraryRoot());
+    log.info("found {} show directories in '{}', parallelism {}", showDirectories.size(),
+        this.options.getLibraryRoot(), this.options.getParallelism());
+    if (!this.options.isDryRun()) {
+      TVShowRenamer.recover();
+    }
+    newSession();
+    Map<File, ShowResult> results = new HashMap<>();
+    try {
+      Pipeline.<File>create("batch")
+          .stage("scan", DISK_WORKERS, QUEUE_CAPACITY, this::scan)
+          .stage("lookup", this.options.getParallelism(), QUEUE_CAPACITY, this::lookup)
+          .stage("name", CPU_WORKERS, QUEUE_CAPACITY, this::plan)
+          .stage("rename", DISK_WORKERS, QUEUE_CAPACITY, this::rename)
+          .run(showDirectories, job -> results.put(job.result.getDirectory(), job.result));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      showDirectories.forEach(d -> results.computeIfAbsent(d, k -> new ShowResult(d).error(e)));
+    } catch (RuntimeException e) {
+      showDirectories.forEach(d -> results.computeIfAbsent(d, k -> new ShowResult(d).error(e)));
+    }
+    return showDirectories.stream().map(results::get).collect(Collectors.toList());
+  }
+
+  static List<File> discoverShowDirectories(File libraryRoot) {
+    File[] files = libraryRoot.listFiles(File::isDirectory);
+    if (files == null) {
+      return new ArrayList<>();
+    }
+    return Arrays.stream(files).sorted(Comparator.comparing(File::getName)).collect(Collectors.toList());
+  }
+
+  ShowResult rename(ShowResult result, Collection<EpisodeTableItem> items, EpisodeCatalog episodes) {
+    Job job = new Job(result);
+    job.items = items;
+    job.episodes = episodes;
+    return rename(plan(job)).result;
+  }
+
+  private Job scan(File showDirectory) {
+    return step(new Job(new ShowResult(showDirectory)), job -> {
+      List<File> seasons = TVShowFileSupport.listSeasonDirectories(showDirectory);
+      if (seasons.isEmpty()) {
+        job.result.status(Status.NO_SEASONS);
+        return;
+      }
+      job.seasons = TVShowFileSupport.getSeasonNumbers(seasons);
+      job.items = TVShowFileSupport.listEpisodes(seasons);
+    });
+  }
+
+  private Job lookup(Job job) {
+    return step(job, j -> {
+      TVShow tvShow = chooseShow(j.result, this.tvAdapter.findTvShow(j.result.getDirectory().getName()));
+      if (tvShow == null) {
+        j.result.setCounts(j.items.size(), 0, 0);
+        return;
+      }
+      j.result.setTvShow(tvShow, tvShow.getName(this.language));
+      j.episodes = this.tvAdapter.findEpisodes(tvShow, this.language, j.seasons);
+    });
+  }
+
+  static TVShow chooseShow(ShowResult result, List<TVShow> tvShows) {
+    List<TVShow> matches = TVShowRanking.exactMatches(result.getDirectory().getName(), tvShows);
+    if (matches.size() == 1) {
+      return matches.get(0);
+    }
+    log.info("{} exact matches for '{}' among {} results, not renaming", matches.size(),
+        result.getDirectory().getName(), tvShows.size());
+    result.status(matches.isEmpty() ? Status.NOT_FOUND : Status.AMBIGUOUS);
+    return null;
+  }
+
+  private Job plan(Job job) {
+    return step(job, j -> {
+      planNames(j.items, j.episodes);
+      j.renames = j.items.stream().filter(TVShowRenamer::isRename).collect(Collectors.toList());
+      if (j.renames.isEmpty()) {
+        j.result.setCounts(j.items.size(), 0, 0);
+        j.result.status(Status.UNCHANGED);
+      } else if (this.options.isDryRun()) {
+        j.result.setCounts(j.items.size(), j.renames.size(), 0);
+        j.result.status(Status.PLANNED);
+      }
+    });
+  }
+
+  synchronized void newSession() {
+    this.sessionStarted = false;
+  }
+
+  private synchronized void startSession() {
+    if (!this.sessionStarted) {
+      TVShowRenamer.startSession();
+      this.sessionStarted = true;
+    }
+  }
+
+  private Job rename(Job job) {
+    return step(job, j -> {
+      startSession();
+      RenameResult renamed = TVShowRenamer.rename(j.renames);
+      renamed.apply();
+      renamed.getFailureReasons().forEach((item, reason) -> j.result.addFailed(item.getFile().get().getName()
+          + " (" + reason + ")"));
+      j.result.setCounts(j.items.size(), j.renames.size(), renamed.getRenamedCount());
+      j.result.status(j.result.getFailed().isEmpty() ? Status.RENAMED : Status.FAILED);
+    });
+  }
+
+  private static Job step(Job job, Consumer<Job> step) {
+    if (job.result.getStatus() == null) {
+      try {
+        step.accept(job);
+      } catch (RuntimeException e) {
+        log.error("processing '{}' failed", job.result.getDirectory(), e);
+        job.result.error(e);
+      }
+    }
+    return job;
+  }
+
+  private void planNames(Collection<EpisodeTableItem> items, EpisodeCatalog episodes) {
+    for (EpisodeTableItem item : items) {
+      Episode info = episodes.get(item.getSeasonNumberInt(), item.getEpisodeNumberInt());
+      String newName = null;
+      if (info != null) {
+        newName = TVShowFileSupport.createNewName(info, this.language, this.options.isIncludeTitle());
+      }
+      item.getNewName().set(newName);
+    }
+  }
+
+  private static Map<String, Object> createSummary(List<ShowResult> results, long millis) {
+    Map<Status, Integer> counts = new EnumMap<>(Status.class);
+    results.forEach(r -> counts.merge(r.getStatus(), 1, Integer::sum));
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("shows", results.size());
+    result.put("durationMillis", millis);
+    result.put("status", counts);
+    result.put("results", results.stream().map(ShowResult::toMap).collect(Collectors.toList()));
+    return result;
+  }
+
+  static String toJson(Object value) {
+    try {
+      return MAPPER.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void writeSummary(BatchOptions options, String json) {
+    if (options.getOutput() == null) {
+      System.out.println(json);
+      return;
+    }
+    try {
+      Files.writeString(options.getOutput().toPath(), json, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      log.error("could not write summary to '{}'", options.getOutput(), e);
+      System.out.println(json);
+    }
+  }
+
+  private static class Job {
+
+    private final ShowResult result;
+
+    private Set<Integer> seasons;
+
+    private Collection<EpisodeTableItem> items;
+
+    private EpisodeCatalog episodes;
+
+    private List<EpisodeTableItem> renames;
+
+    Job(ShowResult result) {
+      this.result = result;
+    }
+  }
+}
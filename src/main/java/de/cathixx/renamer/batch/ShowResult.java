@@ -0,0 +1,83 @@
+package de.cathixx.renamer.batch;
+
+import de.cathixx.renamer.data.TVShow;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+
+@Getter
+public class ShowResult {
+
+  public enum Status {
+    RENAMED, PLANNED, UNCHANGED, NO_SEASONS, NOT_FOUND, AMBIGUOUS, FAILED, ERROR
+  }
+
+  private final File directory;
+
+  private Status status;
+
+  private TVShow tvShow;
+
+  private String showName;
+
+  private int episodes;
+
+  private int planned;
+
+  private int renamed;
+
+  private final List<String> failed = new ArrayList<>();
+
+  private String error;
+
+  public ShowResult(File directory) {
+    this.directory = directory;
+  }
+
+  ShowResult status(Status status) {
+    this.status = status;
+    return this;
+  }
+
+  void setTvShow(TVShow tvShow, String showName) {
+    this.tvShow = tvShow;
+    this.showName = showName;
+  }
+
+  void setCounts(int episodes, int planned, int renamed) {
+    this.episodes = episodes;
+    this.planned = planned;
+    this.renamed = renamed;
+  }
+
+  void addFailed(String fileName) {
+    this.failed.add(fileName);
+  }
+
+  ShowResult error(Exception e) {
+    this.error = e.toString();
+    return status(Status.ERROR);
+  }
+
+  public Map<String, Object> toMap() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("directory", this.directory.getAbsolutePath());
+    result.put("status", this.status);
+    if (this.tvShow != null) {
+      result.put("provider", this.tvShow.getProvider());
+      result.put("showId", this.tvShow.getId());
+      result.put("showName", this.showName);
+    }
+    result.put("episodes", this.episodes);
+    result.put("planned", this.planned);
+    result.put("renamed", this.renamed);
+    result.put("failed", this.failed);
+    if (this.error != null) {
+      result.put("error", this.error);
+    }
+    return result;
+  }
+}
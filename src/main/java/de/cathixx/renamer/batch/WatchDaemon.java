@@ -0,0 +1,328 @@
+package de.cathixx.renamer.batch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import de.cathixx.renamer.apiadapter.TVShowApiAdapter;
+import de.cathixx.renamer.batch.ShowResult.Status;
+import de.cathixx.renamer.data.EpisodeCatalog;
+import de.cathixx.renamer.data.EpisodeTableItem;
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import de.cathixx.renamer.util.DirectoryScanner;
+import de.cathixx.renamer.util.TVShowFileSupport;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class WatchDaemon {
+
+  private static final long SETTLE_MILLIS = Long.getLong("renamer.watch.settle", 2000);
+
+  private static final long MAX_BATCH_MILLIS = SETTLE_MILLIS * 15;
+
+  private static final long CATALOG_RETRY_MILLIS = Long.getLong("renamer.watch.retry", 15 * 60 * 1000);
+
+  private static final long MAX_CATALOG_WAIT_MILLIS = 24 * 60 * 60 * 1000;
+
+  private enum Level {
+    ROOT, SHOW, SEASON
+  }
+
+  private final BatchOptions options;
+
+  private final TVShowApiAdapter tvAdapter;
+
+  private final TVShowApiAdapter uncachedAdapter;
+
+  private final Language language;
+
+  private final BatchRenamer renamer;
+
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+
+  private final Map<Path, Level> levels = new HashMap<>();
+
+  private final Map<File, ShowState> shows = new HashMap<>();
+
+  private final Set<File> renamed = new HashSet<>();
+
+  private final Map<File, Long> sizes = new HashMap<>();
+
+  private final Map<File, Long> missing = new HashMap<>();
+
+  private final Map<File, Set<File>> pending = new LinkedHashMap<>();
+
+  private long retryAt;
+
+  public WatchDaemon(BatchOptions options, TVShowApiAdapter tvAdapter, TVShowApiAdapter uncachedAdapter,
+      Language language) {
+    this.options = options;
+    this.tvAdapter = tvAdapter;
+    this.uncachedAdapter = uncachedAdapter;
+    this.language = language;
+    this.renamer = new BatchRenamer(options, tvAdapter, language);
+  }
+
+  public void remember(Collection<ShowResult> results) {
+    for (ShowResult result : results) {
+      if (result.getTvShow() != null) {
+        this.shows.put(result.getDirectory(), new ShowState(result.getTvShow()));
+      }
+    }
+  }
+
+  public void run() throws IOException, InterruptedException {
+    File libraryRoot = this.options.getLibraryRoot();
+    try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+      register(watcher, libraryRoot.toPath(), Level.ROOT);
+      for (File showDirectory : BatchRenamer.discoverShowDirectories(libraryRoot)) {
+        registerShow(watcher, showDirectory, null);
+      }
+      log.info("watching {} directories below '{}'", this.directories.size(), libraryRoot);
+      while (!this.directories.isEmpty()) {
+        Map<File, Set<File>> created = new LinkedHashMap<>();
+        WatchKey key = this.pending.isEmpty() ? watcher.take()
+            : watcher.poll(Math.max(0, this.retryAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        long deadline = System.currentTimeMillis() + MAX_BATCH_MILLIS;
+        while (key != null) {
+          collect(watcher, key, created);
+          key = System.currentTimeMillis() < deadline ? watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS) : null;
+        }
+        if (!this.pending.isEmpty() && System.currentTimeMillis() >= this.retryAt) {
+          this.pending.forEach((season, files) -> files.forEach(f -> add(created, season, f)));
+          this.pending.clear();
+        }
+        process(created);
+      }
+      log.warn("no watchable directories left below '{}'", libraryRoot);
+    }
+  }
+
+  private void collect(WatchService watcher, WatchKey key, Map<File, Set<File>> created) throws IOException {
+    Path directory = this.directories.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        log.warn("watch events lost, rescanning all season directories");
+        rescan(created);
+      } else if (directory != null) {
+        File file = directory.resolve((Path) event.context()).toFile();
+        Level level = this.levels.get(directory);
+        if (event.kind() == ENTRY_MODIFY && level != Level.SEASON) {
+          continue;
+        }
+        if (level == Level.ROOT && file.isDirectory()) {
+          registerShow(watcher, file, created);
+        } else if (level == Level.SHOW && file.isDirectory()) {
+          registerShow(watcher, directory.toFile(), created);
+        } else if (level == Level.SEASON && !this.renamed.remove(file) && isNewEpisode(file)) {
+          add(created, directory.toFile(), file);
+        }
+      }
+    }
+    if (!key.reset()) {
+      Path removed = this.directories.remove(key);
+      this.levels.remove(removed);
+      log.debug("stopped watching '{}'", removed);
+    }
+  }
+
+  private void registerShow(WatchService watcher, File showDirectory, Map<File, Set<File>> created)
+      throws IOException {
+    register(watcher, showDirectory.toPath(), Level.SHOW);
+    for (File seasonDirectory : TVShowFileSupport.listSeasonDirectories(showDirectory)) {
+      if (register(watcher, seasonDirectory.toPath(), Level.SEASON) && created != null) {
+        addExisting(seasonDirectory, created);
+      }
+    }
+  }
+
+  private boolean register(WatchService watcher, Path directory, Level level) throws IOException {
+    if (this.levels.containsKey(directory)) {
+      return false;
+    }
+    this.directories.put(directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY), directory);
+    this.levels.put(directory, level);
+    return true;
+  }
+
+  private void rescan(Map<File, Set<File>> created) {
+    this.levels.forEach((directory, level) -> {
+      if (level == Level.SEASON) {
+        addExisting(directory.toFile(), created);
+      }
+    });
+  }
+
+  private void addExisting(File seasonDirectory, Map<File, Set<File>> created) {
+    for (File file : DirectoryScanner.getDefault().listEpisodeFiles(seasonDirectory)) {
+      if (isNewEpisode(file)) {
+        add(created, seasonDirectory, file);
+      }
+    }
+  }
+
+  private void add(Map<File, Set<File>> files, File seasonDirectory, File file) {
+    files.computeIfAbsent(seasonDirectory, d -> new LinkedHashSet<>()).add(file);
+    this.sizes.putIfAbsent(file, file.length());
+  }
+
+  private void defer(File seasonDirectory, File file, long millis) {
+    long at = System.currentTimeMillis() + millis;
+    this.retryAt = this.pending.isEmpty() ? at : Math.min(this.retryAt, at);
+    this.pending.computeIfAbsent(seasonDirectory, d -> new LinkedHashSet<>()).add(file);
+  }
+
+  private boolean isSettled(File file) {
+    Long size = this.sizes.remove(file);
+    return file.isFile() && size != null && size == file.length()
+        && System.currentTimeMillis() - file.lastModified() >= SETTLE_MILLIS;
+  }
+
+  private static boolean isNewEpisode(File file) {
+    return !file.getName().startsWith(".") && DirectoryScanner.isEpisodeFile(file.getName()) && file.isFile();
+  }
+
+  private void process(Map<File, Set<File>> created) {
+    Map<File, Map<File, Set<File>>> byShow = new LinkedHashMap<>();
+    created.forEach((season, files) -> {
+      Set<File> settled = new LinkedHashSet<>();
+      for (File file : files) {
+        if (isSettled(file)) {
+          settled.add(file);
+        } else if (file.isFile()) {
+          log.debug("'{}' is still being written, retrying later", file);
+          this.sizes.put(file, file.length());
+          defer(season, file, SETTLE_MILLIS);
+        }
+      }
+      if (!settled.isEmpty()) {
+        byShow.computeIfAbsent(season.getParentFile(), s -> new LinkedHashMap<>()).put(season, settled);
+      }
+    });
+    if (byShow.isEmpty()) {
+      return;
+    }
+    this.renamer.newSession();
+    byShow.forEach((showDirectory, seasons) -> {
+      ShowResult result = process(showDirectory, seasons);
+      log.info("{} new episode(s) in '{}': {}", result.getEpisodes(), showDirectory, result.getStatus());
+      System.out.println(BatchRenamer.toJson(result.toMap()));
+    });
+  }
+
+  private ShowResult process(File showDirectory, Map<File, Set<File>> seasons) {
+    ShowResult result = new ShowResult(showDirectory);
+    try {
+      List<EpisodeTableItem> items = new ArrayList<>();
+      seasons.forEach((season, files) -> items.addAll(TVShowFileSupport.createEpisodes(season, files)));
+      if (items.isEmpty()) {
+        return result.status(Status.UNCHANGED);
+      }
+      ShowState state = getShowState(result, TVShowFileSupport.getSeasonNumbers(seasons.keySet()));
+      if (state == null) {
+        result.setCounts(items.size(), 0, 0);
+        return result;
+      }
+      result.setTvShow(state.tvShow, state.tvShow.getName(this.language));
+      if (hasMissing(items, state.catalog)
+          && System.currentTimeMillis() - state.refreshed >= CATALOG_RETRY_MILLIS) {
+        log.info("episodes missing from the catalog of '{}', refetching", state.tvShow.getKey());
+        state.catalog = this.uncachedAdapter.findEpisodes(state.tvShow, this.language, state.seasons);
+        state.refreshed = System.currentTimeMillis();
+      }
+      List<File> before = new ArrayList<>();
+      items.forEach(item -> before.add(item.getFile().get()));
+      this.renamer.rename(result, items, state.catalog);
+      for (int i = 0; i < items.size(); i++) {
+        File after = items.get(i).getFile().get();
+        if (!after.equals(before.get(i))) {
+          this.renamed.add(after);
+        }
+        if (isMissing(items.get(i), state.catalog)) {
+          retryMissing(before.get(i));
+        } else {
+          this.missing.remove(before.get(i));
+        }
+      }
+      return result;
+    } catch (RuntimeException e) {
+      log.error("processing new episodes in '{}' failed", showDirectory, e);
+      return result.error(e);
+    }
+  }
+
+  private void retryMissing(File file) {
+    long since = this.missing.computeIfAbsent(file, f -> System.currentTimeMillis());
+    if (System.currentTimeMillis() - since < MAX_CATALOG_WAIT_MILLIS) {
+      defer(file.getParentFile(), file, CATALOG_RETRY_MILLIS);
+    } else {
+      log.warn("'{}' is still not in the catalog, giving up", file);
+      this.missing.remove(file);
+    }
+  }
+
+  private static boolean hasMissing(List<EpisodeTableItem> items, EpisodeCatalog catalog) {
+    return items.stream().anyMatch(item -> isMissing(item, catalog));
+  }
+
+  private static boolean isMissing(EpisodeTableItem item, EpisodeCatalog catalog) {
+    return catalog.get(item.getSeasonNumberInt(), item.getEpisodeNumberInt()) == null;
+  }
+
+  private ShowState getShowState(ShowResult result, Set<Integer> seasonNumbers) {
+    File showDirectory = result.getDirectory();
+    ShowState state = this.shows.get(showDirectory);
+    if (state == null) {
+      TVShow tvShow = BatchRenamer.chooseShow(result, this.tvAdapter.findTvShow(showDirectory.getName()));
+      if (tvShow == null) {
+        return null;
+      }
+      state = new ShowState(tvShow);
+      this.shows.put(showDirectory, state);
+    }
+    if (state.catalog == null || !state.seasons.containsAll(seasonNumbers)) {
+      SortedSet<Integer> wanted = new TreeSet<>(TVShowFileSupport.getSeasonNumbers(
+          TVShowFileSupport.listSeasonDirectories(showDirectory)));
+      wanted.addAll(seasonNumbers);
+      state.catalog = this.tvAdapter.findEpisodes(state.tvShow, this.language, wanted);
+      state.seasons = wanted;
+      state.refreshed = 0;
+    }
+    return state;
+  }
+
+  private static class ShowState {
+
+    private final TVShow tvShow;
+
+    private Set<Integer> seasons = new TreeSet<>();
+
+    private EpisodeCatalog catalog;
+
+    private long refreshed;
+
+    ShowState(TVShow tvShow) {
+      this.tvShow = tvShow;
+    }
+  }
+}
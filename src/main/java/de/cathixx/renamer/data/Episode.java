@@ -1,5 +1,6 @@
 package de.cathixx.renamer.data;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.Map;
 import lombok.AllArgsConstructor;
@@ -7,7 +8,9 @@ import lombok.Getter;
 
 @AllArgsConstructor
 @Getter
-public class Episode implements Comparable<Episode> {
+public class Episode implements Comparable<Episode>, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private final int id;
 
@@ -0,0 +1,183 @@
+package de.cathixx.renamer.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public class EpisodeCatalog implements Iterable<Episode>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int EMPTY = -1;
+
+  private final Language language;
+
+  private final Map<Language, String> showNames;
+
+  private final int[] keys;
+
+  private final int[] ids;
+
+  private final int[] nameIndexes;
+
+  private final int[] nameOffsets;
+
+  private final String nameData;
+
+  private final int[] table;
+
+  private EpisodeCatalog(Language language, Map<Language, String> showNames, int[] keys, int[] ids,
+      int[] nameIndexes, int[] nameOffsets, String nameData) {
+    this.language = language;
+    this.showNames = Map.copyOf(showNames);
+    this.keys = keys;
+    this.ids = ids;
+    this.nameIndexes = nameIndexes;
+    this.nameOffsets = nameOffsets;
+    this.nameData = nameData;
+    this.table = new int[tableSize(keys.length)];
+    Arrays.fill(this.table, EMPTY);
+    for (int i = 0; i < keys.length; i++) {
+      int slot = slot(keys[i]);
+      if (this.table[slot] == EMPTY) {
+        this.table[slot] = i;
+      }
+    }
+  }
+
+  public static Builder builder(Language language, Map<Language, String> showNames) {
+    return new Builder(language, showNames);
+  }
+
+  public static int key(int seasonNumber, int episodeNumber) {
+    return (seasonNumber << 16) | (episodeNumber & 0xFFFF);
+  }
+
+  public Language getLanguage() {
+    return this.language;
+  }
+
+  public int size() {
+    return this.keys.length;
+  }
+
+  public boolean isEmpty() {
+    return this.keys.length == 0;
+  }
+
+  public Episode get(int seasonNumber, int episodeNumber) {
+    int index = this.table[slot(key(seasonNumber, episodeNumber))];
+    return index != EMPTY ? createEpisode(index) : null;
+  }
+
+  @Override
+  public Iterator<Episode> iterator() {
+    return new Iterator<>() {
+
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return this.index < EpisodeCatalog.this.keys.length;
+      }
+
+      @Override
+      public Episode next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return createEpisode(this.index++);
+      }
+    };
+  }
+
+  private Episode createEpisode(int index) {
+    int key = this.keys[index];
+    int nameIndex = this.nameIndexes[index];
+    String name = this.nameData.substring(this.nameOffsets[nameIndex], this.nameOffsets[nameIndex + 1]);
+    return new Episode(this.ids[index], key >>> 16, key & 0xFFFF, this.showNames, Map.of(this.language, name));
+  }
+
+  private int slot(int key) {
+    int mask = this.table.length - 1;
+    int slot = mix(key) & mask;
+    while (this.table[slot] != EMPTY && this.keys[this.table[slot]] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int tableSize(int size) {
+    int result = 2;
+    while (result < size * 2) {
+      result <<= 1;
+    }
+    return result;
+  }
+
+  public static class Builder {
+
+    private final Language language;
+
+    private final Map<Language, String> showNames;
+
+    private final Map<Integer, int[]> entries = new HashMap<>();
+
+    private final Map<String, Integer> interned = new HashMap<>();
+
+    private Builder(Language language, Map<Language, String> showNames) {
+      this.language = language;
+      this.showNames = showNames;
+    }
+
+    public Builder add(int id, int seasonNumber, int episodeNumber, String name) {
+      int key = key(seasonNumber, episodeNumber);
+      int[] existing = this.entries.get(key);
+      if (existing == null || id < existing[0]) {
+        this.entries.put(key, new int[] {id, key, intern(name != null ? name : "")});
+      }
+      return this;
+    }
+
+    private int intern(String name) {
+      Integer index = this.interned.get(name);
+      if (index == null) {
+        index = this.interned.size();
+        this.interned.put(name, index);
+      }
+      return index;
+    }
+
+    public EpisodeCatalog build() {
+      String[] names = new String[this.interned.size()];
+      this.interned.forEach((name, index) -> names[index] = name);
+      StringBuilder nameData = new StringBuilder();
+      int[] nameOffsets = new int[names.length + 1];
+      for (int i = 0; i < names.length; i++) {
+        nameOffsets[i] = nameData.length();
+        nameData.append(names[i]);
+      }
+      nameOffsets[names.length] = nameData.length();
+      int[][] sorted = this.entries.values().stream().sorted((a, b) -> Integer.compare(a[0], b[0]))
+          .toArray(int[][]::new);
+      int[] keys = new int[sorted.length];
+      int[] ids = new int[sorted.length];
+      int[] nameIndexes = new int[sorted.length];
+      for (int i = 0; i < sorted.length; i++) {
+        ids[i] = sorted[i][0];
+        keys[i] = sorted[i][1];
+        nameIndexes[i] = sorted[i][2];
+      }
+      return new EpisodeCatalog(this.language, this.showNames, keys, ids, nameIndexes, nameOffsets,
+          nameData.toString());
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package de.cathixx.renamer.data;
 
+import java.io.Serializable;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -7,7 +8,9 @@ import lombok.Getter;
 @AllArgsConstructor
 @Getter
 @EqualsAndHashCode
-public class Language {
+public class Language implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private final String apiName;
   private final String label;
@@ -1,5 +1,6 @@
 package de.cathixx.renamer.data;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Map;
@@ -8,8 +9,12 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 @Getter
-@EqualsAndHashCode(of = "id")
-public class TVShow implements Comparable<TVShow> {
+@EqualsAndHashCode(of = {"provider", "id"})
+public class TVShow implements Comparable<TVShow>, Serializable {
+
+  private static final long serialVersionUID = 2L;
+
+  private final String provider;
 
   private final int id;
 
@@ -25,8 +30,9 @@ public class TVShow implements Comparable<TVShow> {
 
   private final float popularity;
 
-  public TVShow(int id, Integer year, Map<Language, String> names, String bannerURL, Collection<String> aliasses,
-      int numberOfSeasons, float popularity) {
+  public TVShow(String provider, int id, Integer year, Map<Language, String> names, String bannerURL,
+      Collection<String> aliasses, int numberOfSeasons, float popularity) {
+    this.provider = provider;
     this.id = id;
     this.year = year;
     this.names = Map.copyOf(names);
@@ -38,7 +44,11 @@ public class TVShow implements Comparable<TVShow> {
 
   @Override
   public int compareTo(TVShow o) {
-    return Comparator.comparing(TVShow::getId).compare(this, o);
+    return Comparator.comparing(TVShow::getId).thenComparing(TVShow::getKey).compare(this, o);
+  }
+
+  public String getKey() {
+    return this.provider + ":" + this.id;
   }
 
   public String getName(Language language) {
@@ -1,21 +1,40 @@
 package de.cathixx.renamer.gui;
 
+import de.cathixx.renamer.apiadapter.CachingAdapter;
+import de.cathixx.renamer.apiadapter.HedgedAdapter;
+import de.cathixx.renamer.apiadapter.IndexingAdapter;
+import de.cathixx.renamer.apiadapter.LazyAdapter;
+import de.cathixx.renamer.apiadapter.MeasuringAdapter;
 import de.cathixx.renamer.apiadapter.TVShowApiAdapter;
-import de.cathixx.renamer.apiadapter.TheMovieDBAdapter;
 import de.cathixx.renamer.data.DirectoryInfos;
 import de.cathixx.renamer.data.Episode;
+import de.cathixx.renamer.data.EpisodeCatalog;
 import de.cathixx.renamer.data.EpisodeTableItem;
 import de.cathixx.renamer.data.Language;
 import de.cathixx.renamer.data.TVShow;
 import de.cathixx.renamer.gui.MainView.TaskType;
+import de.cathixx.renamer.metrics.Metrics;
 import de.cathixx.renamer.util.DelayedListener;
+import de.cathixx.renamer.util.ImageLoader;
+import de.cathixx.renamer.util.IncrementalSearch;
+import de.cathixx.renamer.util.RenameResult;
+import de.cathixx.renamer.util.ResultCache;
 import de.cathixx.renamer.util.TVShowFileSupport;
+import de.cathixx.renamer.util.TVShowIndex;
 import de.cathixx.renamer.util.TVShowRenamer;
 import de.cathixx.renamer.util.TaskExecutor;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javafx.collections.ObservableList;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +42,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MainController {
 
+  private static final long MAX_CACHED_RESULTS = 100;
+
+  private static final long MAX_CACHED_IMAGE_BYTES = 16L * 1024 * 1024;
+
+  private static final long MAX_STORED_IMAGE_BYTES = 64L * 1024 * 1024;
+
   private final MainModel model;
 
   private final MainView view;
@@ -31,15 +56,43 @@ public class MainController {
 
   private final TVShowApiAdapter tvAdapter;
 
+  private final TVShowIndex index = TVShowIndex.getDefault();
+
+  private final ImageLoader imageLoader;
+
+  private final IncrementalSearch incrementalSearch = new IncrementalSearch();
+
+  private final DelayedListener<String> tvShowNameListener = new DelayedListener<>(this::tvShowNameChanged, 1000);
+
+  private final long started = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+  private boolean episodesScanned;
+
+  private boolean startupMeasured;
+
+  private EpisodeCatalog catalog;
+
   public MainController(Stage primaryStage, ResourceBundle resources, DirectoryInfos directoryInfos) {
     this.model = new MainModel(primaryStage, directoryInfos, resources);
     this.view = new MainView(resources, this.model.getLoading());
-    this.executor = new TaskExecutor(this.view, resources);
-    this.tvAdapter = new TheMovieDBAdapter(this.view.getSelectableLanguages());
+    this.executor = new TaskExecutor(this.view, resources, createCache());
+    this.imageLoader = new ImageLoader(this.view.getImageWidth(), this.view.getImageHeight(), MAX_CACHED_IMAGE_BYTES,
+        MAX_STORED_IMAGE_BYTES);
+    Collection<Language> languages = this.view.getSelectableLanguages();
+    this.tvAdapter = new IndexingAdapter(new LazyAdapter(
+        () -> new CachingAdapter(new MeasuringAdapter(HedgedAdapter.create(languages),
+            this.incrementalSearch::recordLatency), languages)), this.index);
+    this.index.loadAsync();
     initialize(directoryInfos);
     bindModelViewController();
   }
 
+  private static ResultCache createCache() {
+    return new ResultCache(MAX_CACHED_RESULTS)
+        .limit(TaskType.TVSHOW, MAX_CACHED_RESULTS, r -> 1, Duration.ofHours(1))
+        .limit(TaskType.EPISODES, MAX_CACHED_RESULTS, r -> 1, Duration.ofHours(1));
+  }
+
   private void bindModelViewController() {
     this.view.bindTVShowNameProperty(this.model.getTvShowName());
     this.view.bindLanguageProperty(this.model.getSelectedLanguage());
@@ -51,40 +104,64 @@ public class MainController {
     this.view.addRenameButtonClickListener(e -> renameClicked());
     this.model.getSelectedLanguage().addListener((obs, o, n) -> this.languageSelected(o, n));
     this.model.getIncludeTitle().addListener((obs, o, n) -> this.includeTitleSelected(o, n));
-    this.model.getTvShowName().addListener(new DelayedListener<>(this::tvShowNameChanged, 1000));
+    this.model.getTvShowName().addListener((ob, o, n) -> tvShowNameEdited(n));
+    this.model.getTvShowName().addListener(this.tvShowNameListener);
     this.model.getSelectedTVShow().addListener((ob, o, n) -> updateEpisodeList());
   }
 
   private void initialize(DirectoryInfos directoryInfos) {
     this.view.setStatusText(directoryInfos.getMainDirectory().getAbsolutePath());
     this.model.getTvShowName().set(directoryInfos.getMainDirectory().getName());
-    Collection<EpisodeTableItem> episodes = TVShowFileSupport
-        .listEpisodes(this.model.getDirectoryInfos().getSeasonFiles());
+    updateTvShowList();
+    List<File> seasonFiles = directoryInfos.getSeasonFiles();
+    this.executor.execute(TaskType.SCAN, () -> scanEpisodes(seasonFiles), this::episodesScanned,
+        TaskExecutor.NOCACHE);
+  }
+
+  private static Collection<EpisodeTableItem> scanEpisodes(List<File> seasonFiles) {
+    // an interrupted rename is rolled back before the season directories are listed
+    long start = System.currentTimeMillis();
+    TVShowRenamer.recover();
+    Metrics.getDefault().recordSince("startup.recover", start);
+    return TVShowFileSupport.listEpisodes(seasonFiles);
+  }
+
+  private void episodesScanned(Collection<EpisodeTableItem> episodes) {
     this.model.getEpisodes().get().setAll(episodes);
     episodes.forEach(e -> e.getNewName().addListener((ob, o, n) -> this.view.refreshTable()));
     episodes.forEach(e -> e.getSelected().addListener((ob, o, n) -> this.view.renameButtonEnabled()));
+    this.episodesScanned = true;
+    if (this.catalog != null) {
+      updateEpisodeList(this.catalog);
+    }
   }
 
   public void show() {
     this.view.show(this.model.getPrimaryStage());
-    updateTvShowList();
+    long millis = System.currentTimeMillis() - this.started;
+    log.info("window shown {}ms after start", millis);
+    Metrics.getDefault().record("startup.window", millis);
   }
 
   private void renameClicked() {
     log.info("rename");
-    this.executor.execute(TaskType.RENAME, this::rename, this::showFailedRenames, TaskExecutor.NOCACHE);
+    List<EpisodeTableItem> episodes = new ArrayList<>(this.model.getEpisodes().get());
+    this.executor.execute(TaskType.RENAME, () -> rename(episodes), this::renameFinished, TaskExecutor.NOCACHE);
   }
 
-  private Collection<EpisodeTableItem> rename() {
-    Collection<EpisodeTableItem> result = TVShowRenamer.rename(this.model.getEpisodes().get());
-    this.view.renameButtonEnabled();
-    return result;
+  private static RenameResult rename(List<EpisodeTableItem> episodes) {
+    TVShowRenamer.startSession();
+    return TVShowRenamer.rename(episodes);
   }
 
-  private void showFailedRenames(Collection<EpisodeTableItem> failed) {
+  private void renameFinished(RenameResult result) {
+    result.apply();
+    this.view.refreshTable();
+    Map<EpisodeTableItem, String> failed = result.getFailureReasons();
     if (!failed.isEmpty()) {
-      DialogSupport.showError("error.rename.failed", this.model.getResources(),
-          failed.stream().map(e -> e.getFile().get().getName()).collect(Collectors.joining(", ")), false);
+      DialogSupport.showError("error.rename.failed", this.model.getResources(), failed.entrySet().stream()
+          .map(e -> e.getKey().getFile().get().getName() + " (" + e.getValue() + ")")
+          .collect(Collectors.joining(", ")), false);
     }
   }
 
@@ -93,6 +170,46 @@ public class MainController {
     updateTvShowList();
   }
 
+  private void tvShowNameEdited(String name) {
+    this.incrementalSearch.recordKeystroke();
+    this.tvShowNameListener.setDelay(this.incrementalSearch.getDebounceMillis());
+    String enteredName = name.trim();
+    if (enteredName.length() > 2) {
+      List<TVShow> suggestions = this.incrementalSearch.narrow(enteredName);
+      if (suggestions == null || suggestions.isEmpty()) {
+        suggestions = this.index.suggest(enteredName);
+      }
+      if (!suggestions.isEmpty()) {
+        showSuggestions(suggestions);
+      }
+    }
+  }
+
+  private void showSuggestions(List<TVShow> suggestions) {
+    ObservableList<TVShow> items = this.model.getTvShows().get();
+    TVShow selected = this.model.getSelectedTVShow().get();
+    if (selected == null || !items.contains(selected)) {
+      items.setAll(suggestions);
+      return;
+    }
+    // replacing the selected item would clear the selection and with it the planned names
+    List<TVShow> before = new ArrayList<>();
+    List<TVShow> after = new ArrayList<>();
+    boolean found = false;
+    for (TVShow suggestion : suggestions) {
+      if (suggestion.equals(selected)) {
+        found = true;
+      } else if (found) {
+        after.add(suggestion);
+      } else {
+        before.add(suggestion);
+      }
+    }
+    items.removeIf(t -> !t.equals(selected));
+    items.addAll(0, before);
+    items.addAll(after);
+  }
+
   private void languageSelected(final Language oldValue, final Language newValue) {
     log.debug("language selected {}", newValue);
     updateEpisodeList();
@@ -107,13 +224,21 @@ public class MainController {
     String enteredName = this.model.getTvShowName().get().trim();
     if (enteredName.length() <= 2) {
       updateTvShowList(Collections.emptyList());
+    } else if (!this.incrementalSearch.needsRemote(enteredName)) {
+      log.debug("narrow previous results locally for '{}'", enteredName);
+      updateTvShowList(this.incrementalSearch.narrow(enteredName));
     } else {
       this.executor.execute(TaskType.TVSHOW,
           () -> this.tvAdapter.findTvShow(enteredName),
-          this::updateTvShowList, enteredName);
+          r -> tvShowsFound(enteredName, r), enteredName);
     }
   }
 
+  private void tvShowsFound(String name, List<TVShow> tvShows) {
+    this.incrementalSearch.update(name, tvShows);
+    updateTvShowList(tvShows);
+  }
+
   private void updateTvShowList(Collection<TVShow> tvShows) {
     this.model.getTvShows().get().setAll(tvShows);
     if (tvShows.isEmpty()) {
@@ -128,47 +253,52 @@ public class MainController {
     if (selected == null) {
       resetEpisodes();
     } else {
-      if (selected.getBannerURL() != null) {
-        this.executor.execute(TaskType.IMAGE, () -> loadImage(selected.getBannerURL()),
-            this::updateImage, selected.getBannerURL());
+      String bannerURL = selected.getBannerURL();
+      if (bannerURL != null) {
+        // memory hits go through the executor as well, so they supersede a slower load of the previous banner
+        this.executor.execute(TaskType.IMAGE, () -> this.imageLoader.load(bannerURL),
+            image -> updateImage(selected, image), TaskExecutor.NOCACHE);
       } else {
         this.model.getTvShowImage().set(null);
       }
       Language language = this.model.getSelectedLanguage().get();
+      Set<Integer> seasons = TVShowFileSupport.getSeasonNumbers(this.model.getDirectoryInfos().getSeasonFiles());
       this.executor.execute(TaskType.EPISODES,
-          () -> this.tvAdapter.findEpisodes(selected, language),
-          this::updateEpisodeList, selected, language);
+          () -> this.tvAdapter.findEpisodes(selected, language, seasons),
+          this::updateEpisodeList, selected, language, seasons);
     }
   }
 
-  private Image loadImage(String url) {
-    return new Image(url);
-  }
-
-  private void updateImage(Image image) {
-    this.model.getTvShowImage().set(image);
+  private void updateImage(TVShow tvShow, Image image) {
+    if (tvShow.equals(this.model.getSelectedTVShow().get())) {
+      this.model.getTvShowImage().set(image);
+    }
   }
 
-  private void updateEpisodeList(Collection<Episode> episodes) {
+  private void updateEpisodeList(EpisodeCatalog episodes) {
+    this.catalog = episodes;
     for (EpisodeTableItem episode : this.model.getEpisodes().get()) {
       String newName = null;
-      Episode info = episodes.stream().filter(e -> sameEpisode(episode, e)).findAny().orElse(null);
+      Episode info = episodes.get(episode.getSeasonNumberInt(), episode.getEpisodeNumberInt());
       if (info != null) {
         newName = TVShowFileSupport.createNewName(info, this.model.getSelectedLanguage().get(),
             this.model.getIncludeTitle().get());
       }
       episode.getNewName().set(newName);
     }
+    if (this.episodesScanned && !this.startupMeasured) {
+      this.startupMeasured = true;
+      long millis = System.currentTimeMillis() - this.started;
+      log.info("first episode names shown {}ms after start", millis);
+      Metrics.getDefault().record("startup.results", millis);
+    }
   }
 
   private void resetEpisodes() {
+    this.catalog = null;
     this.model.getTvShowImage().set(null);
     this.model.getEpisodes().get().forEach(e -> e.getNewName().set(null));
     this.view.refreshTable();
   }
 
-  private static boolean sameEpisode(EpisodeTableItem e1, Episode e2) {
-    return e1.getSeasonNumber().get() == e2.getSeasonNumber() && e1.getEpisodeNumber().get() == e2.getEpisodeNumber();
-  }
-
 }
@@ -3,6 +3,7 @@ package de.cathixx.renamer.gui;
 import de.cathixx.renamer.data.EpisodeTableItem;
 import de.cathixx.renamer.data.Language;
 import de.cathixx.renamer.data.TVShow;
+import de.cathixx.renamer.util.LanguageSupport;
 import de.cathixx.renamer.util.TVShowRenamer;
 import de.cathixx.renamer.util.TaskExecutor.ProgressUpdater;
 import java.io.IOException;
@@ -109,15 +110,7 @@ public class MainView implements Initializable, ProgressUpdater {
   private void initializeLanguages() {
     ObservableList<Language> langList = FXCollections.observableArrayList();
     this.viewLanguageBox.setItems(langList);
-    String languagelist = this.resources.getString("view.comp.language.selections");
-    String[] languages = languagelist.split(",");
-    for (String lang : languages) {
-      String propKey = "view.comp.language." + lang;
-      String label = this.resources.getString(propKey + ".label");
-      String api = this.resources.getString(propKey + ".api");
-      Language info = new Language(api, label);
-      langList.add(info);
-    }
+    langList.addAll(LanguageSupport.getLanguages(this.resources));
     this.viewLanguageBox.getSelectionModel().select(0);
   }
 
@@ -167,6 +160,14 @@ public class MainView implements Initializable, ProgressUpdater {
     selectedTVShow.addListener((ob, o, n) -> this.viewTVShowList.selectionModelProperty().get().select(n));
   }
 
+  public double getImageWidth() {
+    return this.viewTVShowImage.getFitWidth();
+  }
+
+  public double getImageHeight() {
+    return this.viewTVShowImage.getFitHeight();
+  }
+
   public void bindTVShowImage(ObjectProperty<Image> imageProperty) {
     this.viewTVShowImage.imageProperty().bind(imageProperty);
   }
@@ -203,7 +204,7 @@ public class MainView implements Initializable, ProgressUpdater {
   }
 
   public enum TaskType {
-    TVSHOW, EPISODES, RENAME, IMAGE;
+    TVSHOW, EPISODES, RENAME, IMAGE, SCAN;
   }
 
 }
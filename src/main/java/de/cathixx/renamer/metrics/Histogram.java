@@ -0,0 +1,100 @@
+package de.cathixx.renamer.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+  private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+  public void record(long value) {
+    long v = Math.max(0, value);
+    this.buckets.incrementAndGet(index(v));
+    this.count.increment();
+    this.sum.add(v);
+    this.min.accumulate(v);
+    this.max.accumulate(v);
+  }
+
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  public long getSum() {
+    return this.sum.sum();
+  }
+
+  public long getMax() {
+    return getCount() > 0 ? this.max.get() : 0;
+  }
+
+  public long getMin() {
+    return getCount() > 0 ? this.min.get() : 0;
+  }
+
+  public long percentile(double p) {
+    long total = getCount();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(p * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += this.buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  public Map<String, Object> toMap() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    long total = getCount();
+    result.put("count", total);
+    result.put("sum", getSum());
+    result.put("min", getMin());
+    result.put("mean", total > 0 ? getSum() / total : 0);
+    result.put("p50", percentile(0.5));
+    result.put("p95", percentile(0.95));
+    result.put("p99", percentile(0.99));
+    result.put("max", getMax());
+    return result;
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+  }
+
+  static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,153 @@
+package de.cathixx.renamer.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.cathixx.renamer.util.DiskStore;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class Metrics implements MetricsMXBean {
+
+  public static final String OBJECT_NAME = "de.cathixx.renamer:type=Metrics";
+
+  private static final String DUMP_PROPERTY = "renamer.metrics.dump";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final Metrics DEFAULT = new Metrics();
+
+  private static final AtomicBoolean REGISTERED = new AtomicBoolean();
+
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+  private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean dumpInstalled = new AtomicBoolean();
+
+  private volatile long started = System.currentTimeMillis();
+
+  public static Metrics getDefault() {
+    if (REGISTERED.compareAndSet(false, true)) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(DEFAULT, new ObjectName(OBJECT_NAME));
+      } catch (JMException | RuntimeException e) {
+        log.warn("could not register metrics bean: {}", e.toString());
+      }
+    }
+    return DEFAULT;
+  }
+
+  public void increment(String name) {
+    add(name, 1);
+  }
+
+  public void add(String name, long value) {
+    this.counters.computeIfAbsent(name, k -> new LongAdder()).add(value);
+  }
+
+  public void record(String name, long millis) {
+    this.latencies.computeIfAbsent(name, k -> new Histogram()).record(millis);
+  }
+
+  public void recordSince(String name, long startMillis) {
+    record(name, System.currentTimeMillis() - startMillis);
+  }
+
+  public long getCount(String name) {
+    LongAdder counter = this.counters.get(name);
+    return counter != null ? counter.sum() : 0;
+  }
+
+  public Histogram getHistogram(String name) {
+    return this.latencies.get(name);
+  }
+
+  public void installShutdownDump() {
+    if (!Boolean.parseBoolean(System.getProperty(DUMP_PROPERTY, "true")) || !this.dumpInstalled.compareAndSet(false,
+        true)) {
+      return;
+    }
+    Path file = DiskStore.defaultDirectory("metrics").resolve("metrics.jsonl");
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(file), "metrics-dump"));
+  }
+
+  public void dump(Path file) {
+    if (this.counters.isEmpty() && this.latencies.isEmpty()) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      Files.writeString(file, getJson() + System.lineSeparator(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      log.warn("could not write metrics to {}: {}", file, e.toString());
+    }
+  }
+
+  @Override
+  public Map<String, Long> getCounters() {
+    Map<String, Long> result = new TreeMap<>();
+    this.counters.forEach((name, counter) -> result.put(name, counter.sum()));
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getMedians() {
+    return latencies(h -> h.percentile(0.5));
+  }
+
+  @Override
+  public Map<String, Long> getPercentiles95() {
+    return latencies(h -> h.percentile(0.95));
+  }
+
+  @Override
+  public Map<String, Long> getMaxima() {
+    return latencies(Histogram::getMax);
+  }
+
+  @Override
+  public String getJson() {
+    Map<String, Object> latencies = new TreeMap<>();
+    this.latencies.forEach((name, histogram) -> latencies.put(name, histogram.toMap()));
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("time", Instant.now().toString());
+    result.put("durationMillis", System.currentTimeMillis() - this.started);
+    result.put("counters", getCounters());
+    result.put("latencies", latencies);
+    try {
+      return MAPPER.writeValueAsString(result);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void reset() {
+    this.counters.clear();
+    this.latencies.clear();
+    this.started = System.currentTimeMillis();
+  }
+
+  private Map<String, Long> latencies(ToLongFunction<Histogram> value) {
+    Map<String, Long> result = new TreeMap<>();
+    this.latencies.forEach((name, histogram) -> result.put(name, value.applyAsLong(histogram)));
+    return result;
+  }
+}
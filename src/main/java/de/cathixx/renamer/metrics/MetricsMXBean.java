@@ -0,0 +1,18 @@
+package de.cathixx.renamer.metrics;
+
+import java.util.Map;
+
+public interface MetricsMXBean {
+
+  Map<String, Long> getCounters();
+
+  Map<String, Long> getMedians();
+
+  Map<String, Long> getPercentiles95();
+
+  Map<String, Long> getMaxima();
+
+  String getJson();
+
+  void reset();
+}
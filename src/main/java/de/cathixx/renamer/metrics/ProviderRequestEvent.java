@@ -0,0 +1,57 @@
+package de.cathixx.renamer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("de.cathixx.renamer.ProviderRequest")
+@Label("Provider Request")
+@Category({"Renamer", "Provider"})
+@StackTrace(false)
+public class ProviderRequestEvent extends Event {
+
+  public static final int UNKNOWN_STATUS = -1;
+
+  @Label("Adapter")
+  private String adapter;
+
+  @Label("Endpoint")
+  private String endpoint;
+
+  @Label("Language")
+  private String language;
+
+  @Label("Status")
+  private int status = UNKNOWN_STATUS;
+
+  @Label("Success")
+  private boolean success;
+
+  public static ProviderRequestEvent start(String adapter, String endpoint, String language) {
+    ProviderRequestEvent result = new ProviderRequestEvent();
+    result.adapter = adapter;
+    result.endpoint = endpoint;
+    result.language = language;
+    result.begin();
+    return result;
+  }
+
+  public String getEndpoint() {
+    return this.endpoint;
+  }
+
+  public String getLanguage() {
+    return this.language;
+  }
+
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  public void finish(boolean success) {
+    this.success = success;
+    commit();
+  }
+}
@@ -0,0 +1,40 @@
+package de.cathixx.renamer.metrics;
+
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("de.cathixx.renamer.Rename")
+@Label("Rename")
+@Category({"Renamer", "Rename"})
+@StackTrace(false)
+public class RenameEvent extends Event {
+
+  @Label("Source")
+  private String source;
+
+  @Label("Target")
+  private String target;
+
+  @Label("Success")
+  private boolean success;
+
+  public static RenameEvent start() {
+    RenameEvent result = new RenameEvent();
+    result.begin();
+    return result;
+  }
+
+  public void finish(Path source, Path target, boolean success) {
+    end();
+    if (shouldCommit()) {
+      this.source = source.toString();
+      this.target = target.toString();
+      this.success = success;
+      commit();
+    }
+  }
+}
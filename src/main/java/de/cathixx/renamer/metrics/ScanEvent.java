@@ -0,0 +1,36 @@
+package de.cathixx.renamer.metrics;
+
+import java.io.File;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("de.cathixx.renamer.DirectoryScan")
+@Label("Directory Scan")
+@Category({"Renamer", "Scan"})
+@StackTrace(false)
+public class ScanEvent extends Event {
+
+  @Label("Directory")
+  private String directory;
+
+  @Label("Files")
+  private int fileCount;
+
+  public static ScanEvent start() {
+    ScanEvent result = new ScanEvent();
+    result.begin();
+    return result;
+  }
+
+  public void finish(File directory, int fileCount) {
+    end();
+    if (shouldCommit()) {
+      this.directory = directory.getPath();
+      this.fileCount = fileCount;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package de.cathixx.renamer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("de.cathixx.renamer.Task")
+@Label("Task")
+@Category({"Renamer", "Task"})
+@StackTrace(false)
+public class TaskEvent extends Event {
+
+  public static final String CACHED = "cached";
+
+  public static final String DELIVERED = "delivered";
+
+  public static final String SUPERSEDED = "superseded";
+
+  public static final String FAILED = "failed";
+
+  @Label("Type")
+  private String type;
+
+  @Label("Generation")
+  private long generation;
+
+  @Label("Outcome")
+  private String outcome;
+
+  public static TaskEvent queued(Object type, long generation) {
+    TaskEvent result = new TaskEvent();
+    result.type = String.valueOf(type);
+    result.generation = generation;
+    result.begin();
+    return result;
+  }
+
+  public void finish(String outcome) {
+    this.outcome = outcome;
+    commit();
+  }
+}
@@ -17,6 +17,10 @@ public class DelayedListener<T> implements ChangeListener<T> {
     this.consumer = consumer;
   }
 
+  public void setDelay(int millies) {
+    this.pauseTransition.setDuration(Duration.millis(millies));
+  }
+
   @Override
   public void changed(ObservableValue<? extends T> observable, T oldValue, T newValue) {
     this.pauseTransition.setOnFinished(event -> this.consumer.accept(oldValue, newValue));
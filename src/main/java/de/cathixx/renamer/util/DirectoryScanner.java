@@ -0,0 +1,135 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.metrics.Metrics;
+import de.cathixx.renamer.metrics.ScanEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class DirectoryScanner {
+
+  private static final Set<String> EPISODE_EXTENSIONS = Set.of("avi", "mkv", "mpg", "mp4", "mov");
+
+  private static final int DEFAULT_DEPTH = Integer.getInteger("renamer.scan.depth", 1);
+
+  private static final int DEFAULT_PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+  private static final Comparator<File> BY_NAME = Comparator.comparing(File::getName).thenComparing(File::getPath);
+
+  private static final DirectoryScanner DEFAULT = new DirectoryScanner(DEFAULT_DEPTH,
+      new ForkJoinPool(DEFAULT_PARALLELISM));
+
+  private final int maxDepth;
+
+  private final ForkJoinPool pool;
+
+  public DirectoryScanner(int maxDepth, ForkJoinPool pool) {
+    this.maxDepth = maxDepth;
+    this.pool = pool;
+  }
+
+  public static DirectoryScanner getDefault() {
+    return DEFAULT;
+  }
+
+  public Map<File, List<File>> listEpisodeFiles(Collection<File> seasonDirectories) {
+    Map<File, List<File>> result = new LinkedHashMap<>();
+    scanEpisodeFiles(seasonDirectories).forEach((d, files) -> result.put(d, new ArrayList<>(files.keySet())));
+    return result;
+  }
+
+  public List<File> listEpisodeFiles(File seasonDirectory) {
+    return new ArrayList<>(scanEpisodeFiles(seasonDirectory).keySet());
+  }
+
+  public Map<File, Map<File, BasicFileAttributes>> scanEpisodeFiles(Collection<File> seasonDirectories) {
+    long start = System.currentTimeMillis();
+    Set<File> directories = new LinkedHashSet<>(seasonDirectories);
+    Map<File, Map<File, BasicFileAttributes>> scanned = this.pool.submit(() -> directories.parallelStream()
+        .collect(Collectors.toMap(d -> d, this::scanEpisodeFiles))).join();
+    Map<File, Map<File, BasicFileAttributes>> result = new LinkedHashMap<>();
+    directories.forEach(d -> result.put(d, scanned.get(d)));
+    Metrics metrics = Metrics.getDefault();
+    metrics.recordSince("scan.millis", start);
+    metrics.add("scan.directories", result.size());
+    metrics.add("scan.files", result.values().stream().mapToLong(Map::size).sum());
+    return result;
+  }
+
+  public Map<File, BasicFileAttributes> scanEpisodeFiles(File seasonDirectory) {
+    ScanEvent event = ScanEvent.start();
+    Map<File, BasicFileAttributes> result = new TreeMap<>(BY_NAME);
+    scan(seasonDirectory.toPath(), 1, result);
+    event.finish(seasonDirectory, result.size());
+    return result;
+  }
+
+  private void scan(Path directory, int depth, Map<File, BasicFileAttributes> result) {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path path : stream) {
+        boolean episode = isEpisodeFile(path.getFileName().toString());
+        if (!episode && depth >= this.maxDepth) {
+          continue;
+        }
+        BasicFileAttributes attrs;
+        try {
+          // episode files may be links, directories are only entered when they are real ones
+          attrs = episode ? Files.readAttributes(path, BasicFileAttributes.class)
+              : Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+          continue;
+        } catch (IOException e) {
+          log.warn("could not read '{}': {}", path, e.toString());
+          continue;
+        }
+        if (episode && attrs.isRegularFile()) {
+          result.put(path.toFile(), attrs);
+        } else if (attrs.isDirectory() && depth < this.maxDepth && (!episode || !Files.isSymbolicLink(path))) {
+          scan(path, depth + 1, result);
+        }
+      }
+    } catch (IOException | DirectoryIteratorException e) {
+      log.error("could not scan '{}': {}", directory, e.toString());
+    }
+  }
+
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  public static List<File> listDirectories(File directory, Predicate<String> nameFilter) {
+    List<File> result = new ArrayList<>();
+    DirectoryStream.Filter<Path> filter = p -> nameFilter.test(p.getFileName().toString()) && Files.isDirectory(p);
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), filter)) {
+      stream.forEach(p -> result.add(p.toFile()));
+    } catch (IOException e) {
+      log.error("could not list '{}': {}", directory, e.toString());
+    }
+    return result;
+  }
+
+  public static boolean isEpisodeFile(String fileName) {
+    int index = fileName.lastIndexOf('.');
+    return index >= 0 && EPISODE_EXTENSIONS.contains(fileName.substring(index + 1).toLowerCase());
+  }
+}
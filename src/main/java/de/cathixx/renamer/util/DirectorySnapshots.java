@@ -0,0 +1,168 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.metrics.Metrics;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class DirectorySnapshots {
+
+  private static final Pattern CANONICAL_PATTERN = Pattern.compile("^S(\\d{2,})E(\\d{2,}) - .*$");
+
+  private static final long MODIFIED_GRANULARITY_MILLIS = 2000;
+
+  private static final long UNTRUSTED = -1;
+
+  private static final DirectorySnapshots DEFAULT = new DirectorySnapshots(
+      new DiskStore(DiskStore.defaultDirectory("snapshots")));
+
+  private final DiskStore store;
+
+  public DirectorySnapshots(DiskStore store) {
+    this.store = store;
+  }
+
+  public static DirectorySnapshots getDefault() {
+    return DEFAULT;
+  }
+
+  public Map<File, Map<File, Integer>> listEpisodeNumbers(Map<File, Integer> seasonDirectories,
+      DirectoryScanner scanner) {
+    Map<File, Map<File, Integer>> result = new LinkedHashMap<>();
+    Map<File, Snapshot> previous = new HashMap<>();
+    Map<File, Long> trusted = new HashMap<>();
+    List<File> changed = new ArrayList<>();
+    for (File seasonDirectory : seasonDirectories.keySet()) {
+      Snapshot snapshot = read(seasonDirectory);
+      // taken before the scan, so a change during the scan makes the next listing rescan the directory
+      long modified = getLastModified(seasonDirectory);
+      if (snapshot != null && snapshot.seasonNumber == seasonDirectories.get(seasonDirectory)
+          && snapshot.directoryModified == modified && modified != UNTRUSTED && scanner.getMaxDepth() <= 1) {
+        result.put(seasonDirectory, snapshot.toEpisodeNumbers(seasonDirectory));
+      } else {
+        result.put(seasonDirectory, null);
+        previous.put(seasonDirectory, snapshot);
+        trusted.put(seasonDirectory, trust(modified));
+        changed.add(seasonDirectory);
+      }
+    }
+    Metrics.getDefault().add("scan.snapshot.unchanged", seasonDirectories.size() - changed.size());
+    Metrics.getDefault().add("scan.snapshot.changed", changed.size());
+    if (!changed.isEmpty()) {
+      scanner.scanEpisodeFiles(changed).forEach((seasonDirectory, files) -> {
+        Snapshot snapshot = update(previous.get(seasonDirectory), seasonDirectory,
+            seasonDirectories.get(seasonDirectory), trusted.get(seasonDirectory), files);
+        this.store.write(getKey(seasonDirectory), snapshot);
+        result.put(seasonDirectory, snapshot.toEpisodeNumbers(seasonDirectory));
+      });
+    }
+    return result;
+  }
+
+  private static long trust(long modified) {
+    return System.currentTimeMillis() - modified > MODIFIED_GRANULARITY_MILLIS ? modified : UNTRUSTED;
+  }
+
+  private static Snapshot update(Snapshot previous, File seasonDirectory, int seasonNumber, long trusted,
+      Map<File, BasicFileAttributes> files) {
+    boolean reusable = previous != null && previous.seasonNumber == seasonNumber;
+    Snapshot result = new Snapshot(seasonNumber, trusted);
+    EpisodeNumberRecognizer recognizer = new EpisodeNumberRecognizer(seasonNumber);
+    int reparsed = 0;
+    for (Map.Entry<File, BasicFileAttributes> file : files.entrySet()) {
+      BasicFileAttributes attrs = file.getValue();
+      String name = seasonDirectory.toPath().relativize(file.getKey().toPath()).toString();
+      Entry entry = reusable ? previous.entries.get(name) : null;
+      if (entry == null || !entry.matches(attrs)) {
+        entry = new Entry(attrs, parse(file.getKey(), seasonNumber, recognizer));
+        reparsed++;
+      }
+      result.entries.put(name, entry);
+    }
+    log.debug("snapshot of season {}: {} files, {} reparsed", seasonNumber, files.size(), reparsed);
+    return result;
+  }
+
+  private static Integer parse(File file, int seasonNumber, EpisodeNumberRecognizer recognizer) {
+    Matcher matcher = CANONICAL_PATTERN.matcher(file.getName());
+    if (matcher.matches() && Integer.parseInt(matcher.group(1)) == seasonNumber) {
+      return Integer.valueOf(matcher.group(2));
+    }
+    return TVShowFileSupport.getEpisodeNumber(file, recognizer);
+  }
+
+  private Snapshot read(File seasonDirectory) {
+    Object stored = this.store.read(getKey(seasonDirectory));
+    return stored instanceof Snapshot ? (Snapshot) stored : null;
+  }
+
+  private static String getKey(File seasonDirectory) {
+    return seasonDirectory.getAbsolutePath();
+  }
+
+  private static long getLastModified(File directory) {
+    try {
+      return Files.getLastModifiedTime(directory.toPath()).toMillis();
+    } catch (IOException e) {
+      return UNTRUSTED;
+    }
+  }
+
+  private static class Snapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int seasonNumber;
+
+    private final long directoryModified;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    Snapshot(int seasonNumber, long directoryModified) {
+      this.seasonNumber = seasonNumber;
+      this.directoryModified = directoryModified;
+    }
+
+    Map<File, Integer> toEpisodeNumbers(File seasonDirectory) {
+      Map<File, Integer> result = new LinkedHashMap<>();
+      this.entries.forEach((name, entry) -> result.put(new File(seasonDirectory, name), entry.episodeNumber));
+      return result;
+    }
+  }
+
+  private static class Entry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String fileKey;
+
+    private final long size;
+
+    private final long modified;
+
+    private final Integer episodeNumber;
+
+    Entry(BasicFileAttributes attrs, Integer episodeNumber) {
+      this.fileKey = String.valueOf(attrs.fileKey());
+      this.size = attrs.size();
+      this.modified = attrs.lastModifiedTime().toMillis();
+      this.episodeNumber = episodeNumber;
+    }
+
+    boolean matches(BasicFileAttributes attrs) {
+      return this.fileKey.equals(String.valueOf(attrs.fileKey())) && this.size == attrs.size()
+          && this.modified == attrs.lastModifiedTime().toMillis();
+    }
+  }
+}
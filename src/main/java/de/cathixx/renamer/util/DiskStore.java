@@ -0,0 +1,138 @@
+package de.cathixx.renamer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class DiskStore {
+
+  private static final String FILE_EXTENSION = ".ser";
+
+  private final Path directory;
+
+  public DiskStore(Path directory) {
+    this.directory = directory;
+  }
+
+  public static Path defaultDirectory(String name) {
+    return Paths.get(System.getProperty("user.home"), ".renamer", name);
+  }
+
+  public Object read(String key) {
+    Path file = getFile(key);
+    try (InputStream in = Files.newInputStream(file); ObjectInputStream oin = new ObjectInputStream(in)) {
+      return oin.readObject();
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      log.warn("unreadable store entry '{}': {}", key, e.toString());
+      return null;
+    }
+  }
+
+  public void write(String key, Serializable value) {
+    Path file = getFile(key);
+    Path tmp = null;
+    try {
+      Files.createDirectories(this.directory);
+      tmp = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp); ObjectOutputStream oout = new ObjectOutputStream(out)) {
+        oout.writeObject(value);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("could not write store entry '{}': {}", key, e.toString());
+    } finally {
+      deleteQuietly(tmp);
+    }
+  }
+
+  private static void deleteQuietly(Path tmp) {
+    if (tmp == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(tmp);
+    } catch (IOException e) {
+      log.warn("could not delete store file '{}': {}", tmp, e.toString());
+    }
+  }
+
+  public void delete(String key) {
+    try {
+      Files.deleteIfExists(getFile(key));
+    } catch (IOException e) {
+      log.warn("could not delete store entry '{}': {}", key, e.toString());
+    }
+  }
+
+  public void touch(String key) {
+    try {
+      Files.setLastModifiedTime(getFile(key), FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      log.debug("could not touch store entry '{}': {}", key, e.toString());
+    }
+  }
+
+  public void trim(long maxBytes) {
+    List<Map.Entry<Path, BasicFileAttributes>> entries = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + FILE_EXTENSION)) {
+      for (Path file : stream) {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        entries.add(Map.entry(file, attributes));
+        total += attributes.size();
+      }
+    } catch (NoSuchFileException e) {
+      return;
+    } catch (IOException e) {
+      log.warn("could not list store '{}': {}", this.directory, e.toString());
+      return;
+    }
+    entries.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+    for (Map.Entry<Path, BasicFileAttributes> entry : entries) {
+      if (total <= maxBytes) {
+        break;
+      }
+      deleteQuietly(entry.getKey());
+      total -= entry.getValue().size();
+    }
+  }
+
+  private Path getFile(String key) {
+    return this.directory.resolve(hash(key) + FILE_EXTENSION);
+  }
+
+  private static String hash(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+      StringBuilder result = new StringBuilder();
+      for (byte b : digest) {
+        result.append(String.format("%02x", b));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
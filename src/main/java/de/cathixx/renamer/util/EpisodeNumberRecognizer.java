@@ -0,0 +1,53 @@
+package de.cathixx.renamer.util;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class EpisodeNumberRecognizer {
+
+  private static final String[] REMOVE_STRINGS = {"-x264-"};
+
+  private static final String[] TEMPLATES = {"(?i:S)%S(?i:E)%E", "(?i:S)%S(?i:x)%E", "%S(?i:x)%E",
+      "(?i:S)%S.(?i:E)%E", "- %S%E -", "(?i:Ep)%E", "-(?i:E)%E-", "%S-%E", "%S%E$", "^%E$"};
+
+  private static final Map<Integer, Pattern[]> PATTERNS = new ConcurrentHashMap<>();
+
+  private final Pattern[] patterns;
+
+  public EpisodeNumberRecognizer(int seasonNumber) {
+    this.patterns = PATTERNS.computeIfAbsent(seasonNumber, EpisodeNumberRecognizer::compile);
+  }
+
+  public Integer recognize(String fileName) {
+    String name = fileName;
+    for (String remove : REMOVE_STRINGS) {
+      name = name.replace(remove, "");
+    }
+    for (Pattern pattern : this.patterns) {
+      Matcher matcher = pattern.matcher(name);
+      if (matcher.find()) {
+        return Integer.valueOf(matcher.group(1));
+      }
+    }
+    return null;
+  }
+
+  private static Pattern[] compile(int seasonNumber) {
+    List<Pattern> result = new ArrayList<>();
+    for (String template : TEMPLATES) {
+      for (int i = 2; i >= 1; i--) {
+        NumberFormat nf = NumberFormat.getInstance();
+        nf.setMinimumIntegerDigits(i);
+        String ps = template.replace("%S", nf.format(seasonNumber));
+        ps = ps.replace("%E", "([\\d][\\d])");
+        result.add(Pattern.compile(ps));
+      }
+    }
+    return result.toArray(new Pattern[0]);
+  }
+}
@@ -0,0 +1,94 @@
+package de.cathixx.renamer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import javafx.scene.image.Image;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class ImageLoader {
+
+  private static final Object IMAGE = "image";
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private final DiskStore store;
+
+  private final long maxDiskBytes;
+
+  private final ResultCache memory;
+
+  private final double width;
+
+  private final double height;
+
+  private final HttpClient httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL)
+      .connectTimeout(Duration.ofSeconds(10)).build();
+
+  public ImageLoader(double width, double height, long maxMemoryBytes, long maxDiskBytes) {
+    this(new DiskStore(DiskStore.defaultDirectory("images")), width, height, maxMemoryBytes, maxDiskBytes);
+  }
+
+  public ImageLoader(DiskStore store, double width, double height, long maxMemoryBytes, long maxDiskBytes) {
+    this.store = store;
+    this.maxDiskBytes = maxDiskBytes;
+    this.width = width;
+    this.height = height;
+    this.memory = new ResultCache(0).limit(IMAGE, maxMemoryBytes, ImageLoader::getImageBytes, null);
+  }
+
+  public Image getCached(String url) {
+    return (Image) this.memory.get(IMAGE, url);
+  }
+
+  public Image load(String url) {
+    Image result = getCached(url);
+    if (result != null) {
+      return result;
+    }
+    byte[] data = (byte[]) this.store.read(url);
+    if (data == null) {
+      data = download(url);
+      this.store.write(url, data);
+      this.store.trim(this.maxDiskBytes);
+    } else {
+      log.debug("image from disk cache '{}'", url);
+      this.store.touch(url);
+    }
+    result = new Image(new ByteArrayInputStream(data), this.width, this.height, true, true);
+    if (result.isError()) {
+      this.store.delete(url);
+      throw new RuntimeException("could not decode image " + url, result.getException());
+    }
+    this.memory.put(IMAGE, url, result);
+    return result;
+  }
+
+  private byte[] download(String url) {
+    long start = System.currentTimeMillis();
+    HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET().build();
+    try {
+      HttpResponse<byte[]> response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      if (response.statusCode() != 200) {
+        throw new RuntimeException("image request " + url + " responded " + response.statusCode());
+      }
+      log.debug("request for image ({}ms) {}", System.currentTimeMillis() - start, url);
+      return response.body();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static long getImageBytes(Object image) {
+    Image img = (Image) image;
+    return (long) img.getWidth() * (long) img.getHeight() * 4;
+  }
+}
@@ -0,0 +1,114 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.TVShow;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class IncrementalSearch {
+
+  private static final int MIN_LOCAL_CANDIDATES = 3;
+
+  private static final int MIN_DEBOUNCE_MILLIS = 150;
+
+  private static final int MAX_DEBOUNCE_MILLIS = 1200;
+
+  private static final int DEFAULT_DEBOUNCE_MILLIS = 600;
+
+  private static final long MAX_TYPING_PAUSE_MILLIS = 2000;
+
+  private static final double SMOOTHING = 0.3;
+
+  private String baseQuery;
+
+  private List<TVShow> baseResults;
+
+  private boolean baseTruncated;
+
+  private long lastKeystroke;
+
+  private double typingInterval = -1;
+
+  private double providerLatency = -1;
+
+  public synchronized void update(String query, List<TVShow> results) {
+    this.baseQuery = TVShowIndex.normalize(query);
+    this.baseResults = new ArrayList<>(results);
+    this.baseTruncated = results.size() >= TVShowRanking.DEFAULT_LIMIT;
+  }
+
+  public synchronized List<TVShow> narrow(String query) {
+    String normalized = TVShowIndex.normalize(query);
+    if (this.baseQuery == null || this.baseQuery.isEmpty() || !normalized.startsWith(this.baseQuery)) {
+      return null;
+    }
+    String[] tokens = normalized.split(" ");
+    return this.baseResults.stream().filter(t -> matches(t, tokens)).collect(Collectors.toList());
+  }
+
+  public boolean needsRemote(String query) {
+    List<TVShow> narrowed;
+    synchronized (this) {
+      narrowed = this.baseTruncated ? null : narrow(query);
+    }
+    if (narrowed == null) {
+      return true;
+    }
+    String normalized = TVShowIndex.normalize(query);
+    boolean exact = narrowed.stream().flatMap(IncrementalSearch::names).anyMatch(normalized::equals);
+    return !exact && narrowed.size() < MIN_LOCAL_CANDIDATES;
+  }
+
+  public synchronized void recordKeystroke() {
+    long now = System.currentTimeMillis();
+    long interval = now - this.lastKeystroke;
+    this.lastKeystroke = now;
+    if (interval < MAX_TYPING_PAUSE_MILLIS) {
+      this.typingInterval = average(this.typingInterval, interval);
+    }
+  }
+
+  public synchronized void recordLatency(long millis) {
+    this.providerLatency = average(this.providerLatency, millis);
+  }
+
+  public synchronized int getDebounceMillis() {
+    if (this.typingInterval < 0) {
+      return DEFAULT_DEBOUNCE_MILLIS;
+    }
+    double delay = this.typingInterval * 1.5;
+    if (this.providerLatency > 0) {
+      delay = Math.max(delay, this.providerLatency / 4);
+    }
+    return (int) Math.max(MIN_DEBOUNCE_MILLIS, Math.min(MAX_DEBOUNCE_MILLIS, delay));
+  }
+
+  private static double average(double average, long value) {
+    return average < 0 ? value : average + SMOOTHING * (value - average);
+  }
+
+  private static boolean matches(TVShow tvShow, String[] tokens) {
+    return names(tvShow).anyMatch(name -> {
+      String[] nameTokens = name.split(" ");
+      for (String token : tokens) {
+        boolean found = false;
+        for (String nameToken : nameTokens) {
+          if (nameToken.startsWith(token)) {
+            found = true;
+            break;
+          }
+        }
+        if (!found) {
+          return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static Stream<String> names(TVShow tvShow) {
+    return Stream.concat(tvShow.getNames().values().stream(), tvShow.getAliasses().stream())
+        .map(TVShowIndex::normalize);
+  }
+}
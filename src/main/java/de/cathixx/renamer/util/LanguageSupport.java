@@ -0,0 +1,22 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.Language;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+
+public class LanguageSupport {
+
+  public static List<Language> getLanguages(ResourceBundle res) {
+    List<Language> result = new ArrayList<>();
+    String languagelist = res.getString("view.comp.language.selections");
+    String[] languages = languagelist.split(",");
+    for (String lang : languages) {
+      String propKey = "view.comp.language." + lang;
+      String label = res.getString(propKey + ".label");
+      String api = res.getString(propKey + ".api");
+      result.add(new Language(api, label));
+    }
+    return result;
+  }
+}
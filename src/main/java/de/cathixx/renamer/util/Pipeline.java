@@ -0,0 +1,175 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.metrics.Metrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class Pipeline<T> {
+
+  private static final Object END = new Object();
+
+  private final String name;
+
+  private final List<Stage> stages;
+
+  private Pipeline(String name, List<Stage> stages) {
+    this.name = name;
+    this.stages = stages;
+  }
+
+  public static <T> Pipeline<T> create(String name) {
+    return new Pipeline<>(name, new ArrayList<>());
+  }
+
+  @SuppressWarnings("unchecked")
+  public <R> Pipeline<R> stage(String stageName, int workers, int capacity, Function<? super T, ? extends R> fn) {
+    if (workers < 1 || capacity < 1) {
+      throw new IllegalArgumentException("stage '" + stageName + "' needs at least one worker and queue slot");
+    }
+    List<Stage> result = new ArrayList<>(this.stages);
+    result.add(new Stage(stageName, workers, capacity, (Function<Object, Object>) fn));
+    return new Pipeline<>(this.name, result);
+  }
+
+  public void run(Collection<?> source, Consumer<? super T> sink) throws InterruptedException {
+    if (this.stages.isEmpty()) {
+      throw new IllegalStateException("pipeline '" + this.name + "' has no stages");
+    }
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<BlockingQueue<Object>> queues = new ArrayList<>();
+    this.stages.forEach(s -> queues.add(new ArrayBlockingQueue<>(s.capacity)));
+    queues.add(new ArrayBlockingQueue<>(this.stages.get(this.stages.size() - 1).capacity));
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < this.stages.size(); i++) {
+      Stage stage = this.stages.get(i);
+      BlockingQueue<Object> input = queues.get(i);
+      BlockingQueue<Object> output = queues.get(i + 1);
+      int downstream = i + 1 < this.stages.size() ? this.stages.get(i + 1).workers : 1;
+      AtomicInteger running = new AtomicInteger(stage.workers);
+      for (int w = 0; w < stage.workers; w++) {
+        threads.add(createThread(() -> work(stage, input, output, downstream, running, failure),
+            this.name + "-" + stage.name + "-" + w));
+      }
+    }
+    // the source is fed by its own thread, the caller drains the last queue at the same time
+    threads.add(createThread(() -> feed(source, queues.get(0), this.stages.get(0).workers, failure),
+        this.name + "-source"));
+    threads.forEach(Thread::start);
+    try {
+      drain(queues.get(queues.size() - 1), sink);
+    } finally {
+      threads.forEach(Thread::interrupt);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+    Throwable failed = failure.get();
+    if (failed instanceof RuntimeException) {
+      throw (RuntimeException) failed;
+    } else if (failed instanceof Error) {
+      throw (Error) failed;
+    } else if (failed != null) {
+      throw new RuntimeException(failed);
+    }
+  }
+
+  private void feed(Collection<?> source, BlockingQueue<Object> first, int workers,
+      AtomicReference<Throwable> failure) {
+    try {
+      for (Object item : source) {
+        first.put(item);
+      }
+    } catch (InterruptedException e) {
+      log.debug("[{}] source interrupted", this.name);
+      return;
+    } catch (Throwable e) {
+      log.error("[{}] reading the source failed", this.name, e);
+      failure.compareAndSet(null, e);
+    }
+    end(first, workers);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void drain(BlockingQueue<Object> output, Consumer<? super T> sink) throws InterruptedException {
+    for (Object item = output.take(); item != END; item = output.take()) {
+      sink.accept((T) item);
+    }
+  }
+
+  private void work(Stage stage, BlockingQueue<Object> input, BlockingQueue<Object> next, int downstream,
+      AtomicInteger running, AtomicReference<Throwable> failure) {
+    boolean interrupted = false;
+    try {
+      for (Object item = input.take(); item != END; item = input.take()) {
+        long start = System.currentTimeMillis();
+        Object result;
+        try {
+          result = stage.fn.apply(item);
+        } catch (Throwable e) {
+          log.error("[{}] stage '{}' failed", this.name, stage.name, e);
+          failure.compareAndSet(null, e);
+          continue;
+        } finally {
+          Metrics.getDefault().recordSince("pipeline." + this.name + "." + stage.name, start);
+        }
+        if (result != null) {
+          next.put(result);
+        }
+      }
+    } catch (InterruptedException e) {
+      interrupted = true;
+      log.debug("[{}] stage '{}' interrupted", this.name, stage.name);
+    } catch (Throwable e) {
+      log.error("[{}] stage '{}' worker failed", this.name, stage.name, e);
+      failure.compareAndSet(null, e);
+    } finally {
+      // the last worker of a stage always ends the next one, or the pipeline would wait forever
+      if (running.decrementAndGet() == 0 && !interrupted) {
+        end(next, downstream);
+      }
+    }
+  }
+
+  private void end(BlockingQueue<Object> next, int downstream) {
+    try {
+      for (int i = 0; i < downstream; i++) {
+        next.put(END);
+      }
+    } catch (InterruptedException e) {
+      log.debug("[{}] interrupted while ending stage", this.name);
+    }
+  }
+
+  private static Thread createThread(Runnable r, String name) {
+    Thread t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static class Stage {
+
+    private final String name;
+
+    private final int workers;
+
+    private final int capacity;
+
+    private final Function<Object, Object> fn;
+
+    Stage(String name, int workers, int capacity, Function<Object, Object> fn) {
+      this.name = name;
+      this.workers = workers;
+      this.capacity = capacity;
+      this.fn = fn;
+    }
+  }
+}
@@ -0,0 +1,315 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.metrics.Metrics;
+import de.cathixx.renamer.metrics.RenameEvent;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class RenameEngine {
+
+  private static final int DEFAULT_PARALLELISM = 8;
+
+  private static final String TEMP_PREFIX = ".renamer-";
+
+  private final int parallelism;
+
+  private final RenameJournal journal;
+
+  public RenameEngine() {
+    this(DEFAULT_PARALLELISM, null);
+  }
+
+  public RenameEngine(RenameJournal journal) {
+    this(DEFAULT_PARALLELISM, journal);
+  }
+
+  public RenameEngine(int parallelism, RenameJournal journal) {
+    this.parallelism = parallelism;
+    this.journal = journal;
+  }
+
+  public Map<Move, MoveResult> execute(List<Move> moves) {
+    long start = System.currentTimeMillis();
+    Map<Move, MoveResult> result = new LinkedHashMap<>();
+    List<Move> valid = checkCollisions(moves, result);
+    List<Step> steps = plan(valid);
+    String batch = null;
+    if (this.journal != null && !steps.isEmpty()) {
+      batch = this.journal.begin(steps.stream().map(s -> new Path[] {s.source, s.target}).collect(Collectors.toList()));
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(this.parallelism, RenameEngine::createThread);
+    try {
+      Map<Step, CompletableFuture<Void>> futures = new HashMap<>();
+      for (Step step : steps) {
+        schedule(step, futures, pool, batch);
+      }
+      for (Move move : valid) {
+        result.put(move, resolve(move, steps, futures));
+      }
+    } finally {
+      pool.shutdown();
+    }
+    if (batch != null) {
+      this.journal.end(batch);
+    }
+    Map<Move, MoveResult> ordered = new LinkedHashMap<>();
+    moves.forEach(m -> ordered.put(m, result.get(m)));
+    record(ordered.values(), start);
+    return ordered;
+  }
+
+  private static void record(Collection<MoveResult> results, long start) {
+    long failures = results.stream().filter(r -> !r.isSuccess()).count();
+    Metrics metrics = Metrics.getDefault();
+    metrics.recordSince("rename.millis", start);
+    metrics.add("rename.files", results.size() - failures);
+    metrics.add("rename.failures", failures);
+  }
+
+  private static List<Move> checkCollisions(List<Move> moves, Map<Move, MoveResult> result) {
+    Map<Path, Set<String>> listings = new HashMap<>();
+    List<Move> valid = new ArrayList<>(moves);
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      Set<Path> sources = new HashSet<>();
+      Set<Path> targets = new HashSet<>();
+      valid.forEach(m -> sources.add(m.getSource()));
+      List<Move> accepted = new ArrayList<>();
+      Set<Path> seen = new HashSet<>();
+      for (Move move : valid) {
+        Path target = move.getTarget();
+        Set<String> existing = listings.computeIfAbsent(target.getParent(), RenameEngine::list);
+        String reason = null;
+        if (!seen.add(move.getSource())) {
+          reason = "file is renamed more than once";
+        } else if (!targets.add(target)) {
+          reason = "another file is renamed to the same name";
+        } else if (existing.contains(target.getFileName().toString()) && !sources.contains(target)) {
+          reason = "target file already exists";
+        }
+        if (reason != null) {
+          result.put(move, MoveResult.failed(move, reason));
+          changed = true;
+        } else {
+          accepted.add(move);
+        }
+      }
+      valid = accepted;
+    }
+    return valid;
+  }
+
+  private static Set<String> list(Path directory) {
+    Set<String> result = new HashSet<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      stream.forEach(p -> result.add(p.getFileName().toString()));
+    } catch (IOException e) {
+      log.warn("could not list '{}': {}", directory, e.toString());
+    }
+    return result;
+  }
+
+  private static List<Step> plan(List<Move> moves) {
+    Map<Path, Move> bySource = new HashMap<>();
+    moves.forEach(m -> bySource.put(m.getSource(), m));
+    List<Step> result = new ArrayList<>();
+    Set<Move> visited = new HashSet<>();
+    int tempCounter = 0;
+    for (Move move : moves) {
+      if (visited.contains(move)) {
+        continue;
+      }
+      List<Move> chain = new ArrayList<>();
+      Move current = move;
+      while (current != null && visited.add(current)) {
+        chain.add(current);
+        current = bySource.get(current.getTarget());
+      }
+      boolean cycle = current != null && chain.contains(current);
+      if (cycle) {
+        Move breaker = chain.get(chain.size() - 1);
+        log.debug("rename cycle detected, break at '{}'", breaker.getSource());
+      }
+      for (Move m : chain) {
+        boolean needsTemp = (cycle && m == chain.get(chain.size() - 1)) || isCaseChangeOnly(m);
+        if (needsTemp) {
+          String tempName = TEMP_PREFIX + (tempCounter++) + "-" + m.getSource().getFileName();
+          Path temp = m.getSource().resolveSibling(tempName);
+          Step first = new Step(m, m.getSource(), temp);
+          Step second = new Step(m, temp, m.getTarget());
+          second.dependencies.add(first);
+          second.restore = m.getSource();
+          result.add(first);
+          result.add(second);
+        } else {
+          Step step = new Step(m, m.getSource(), m.getTarget());
+          result.add(step);
+        }
+      }
+    }
+    for (Step step : result) {
+      Move occupant = bySource.get(step.target);
+      if (occupant != null && occupant != step.move) {
+        step.dependencies.add(firstStep(result, occupant));
+      }
+    }
+    return result;
+  }
+
+  private static Step firstStep(List<Step> steps, Move move) {
+    return steps.stream().filter(s -> s.move == move).findFirst().orElseThrow();
+  }
+
+  private static boolean isCaseChangeOnly(Move move) {
+    return move.getSource().getParent().equals(move.getTarget().getParent())
+        && !move.getSource().getFileName().toString().equals(move.getTarget().getFileName().toString())
+        && move.getSource().getFileName().toString().equalsIgnoreCase(move.getTarget().getFileName().toString());
+  }
+
+  private CompletableFuture<Void> schedule(Step step, Map<Step, CompletableFuture<Void>> futures,
+      ExecutorService pool, String batch) {
+    CompletableFuture<Void> future = futures.get(step);
+    if (future == null) {
+      CompletableFuture<?>[] deps = step.dependencies.stream().map(d -> schedule(d, futures, pool, batch))
+          .toArray(CompletableFuture[]::new);
+      future = CompletableFuture.allOf(deps).thenRunAsync(() -> move(step, batch), pool);
+      if (step.restore != null) {
+        future = future.whenComplete((v, e) -> {
+          if (e != null) {
+            restore(step, batch);
+          }
+        });
+      }
+      futures.put(step, future);
+    }
+    return future;
+  }
+
+  private void move(Step step, String batch) {
+    RenameEvent event = RenameEvent.start();
+    boolean success = false;
+    try {
+      if (Files.exists(step.target, LinkOption.NOFOLLOW_LINKS)) {
+        throw new FileAlreadyExistsException(step.target.toString());
+      }
+      try {
+        Files.move(step.source, step.target, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(step.source, step.target);
+      }
+      success = true;
+      journal(batch, step.source, step.target);
+      log.debug("moved '{}' -> '{}'", step.source, step.target);
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    } finally {
+      event.finish(step.source, step.target, success);
+    }
+  }
+
+  private void restore(Step step, String batch) {
+    if (Files.exists(step.source)) {
+      try {
+        Files.move(step.source, step.restore);
+        journal(batch, step.source, step.restore);
+        log.info("restored '{}' after failed rename", step.restore);
+      } catch (IOException e) {
+        log.error("could not restore '{}', file left as '{}': {}", step.restore, step.source, e.toString());
+      }
+    }
+  }
+
+  private void journal(String batch, Path source, Path target) {
+    if (batch != null) {
+      this.journal.done(batch, source, target);
+    }
+  }
+
+  private static MoveResult resolve(Move move, List<Step> steps, Map<Step, CompletableFuture<Void>> futures) {
+    for (Step step : steps) {
+      if (step.move == move) {
+        try {
+          futures.get(step).join();
+        } catch (CompletionException e) {
+          Throwable cause = e.getCause() != null ? e.getCause() : e;
+          log.warn("rename '{}' failed: {}", move.getSource(), cause.toString());
+          return MoveResult.failed(move, cause.toString());
+        }
+      }
+    }
+    return new MoveResult(move, true, null);
+  }
+
+  private static Thread createThread(Runnable r) {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    return t;
+  }
+
+  @AllArgsConstructor
+  @Getter
+  public static class Move {
+
+    private final Path source;
+
+    private final Path target;
+  }
+
+  @AllArgsConstructor
+  @Getter
+  public static class MoveResult {
+
+    private final Move move;
+
+    private final boolean success;
+
+    private final String reason;
+
+    static MoveResult failed(Move move, String reason) {
+      return new MoveResult(move, false, reason);
+    }
+  }
+
+  private static class Step {
+
+    private final Move move;
+
+    private final Path source;
+
+    private final Path target;
+
+    private final List<Step> dependencies = new ArrayList<>();
+
+    private Path restore;
+
+    Step(Move move, Path source, Path target) {
+      this.move = move;
+      this.source = source;
+      this.target = target;
+    }
+  }
+}
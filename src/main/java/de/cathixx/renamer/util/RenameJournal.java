@@ -0,0 +1,441 @@
+package de.cathixx.renamer.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class RenameJournal {
+
+  private static final int MAX_GROUP_SIZE = 1024;
+
+  private static final int MAX_JOURNALS = 10;
+
+  private static final String FILE_EXTENSION = ".journal";
+
+  private static final String SESSION = "SESSION";
+
+  private static final String BEGIN = "BEGIN";
+
+  private static final String PLAN = "PLAN";
+
+  private static final String DONE = "DONE";
+
+  private static final String END = "END";
+
+  private static final String UNDONE = "UNDONE";
+
+  private static final RenameJournal DEFAULT = new RenameJournal(DiskStore.defaultDirectory("journal"));
+
+  private final Path directory;
+
+  private final Path file;
+
+  private final BlockingQueue<Group> queue = new LinkedBlockingQueue<>();
+
+  private FileChannel channel;
+
+  private Thread writer;
+
+  private String session;
+
+  public RenameJournal(Path directory) {
+    this.directory = directory;
+    this.file = directory.resolve(System.currentTimeMillis() + "-" + ProcessHandle.current().pid() + "-"
+        + UUID.randomUUID() + FILE_EXTENSION);
+  }
+
+  public static RenameJournal getDefault() {
+    return DEFAULT;
+  }
+
+  public synchronized void startSession() {
+    recover();
+    this.session = UUID.randomUUID().toString();
+  }
+
+  public String begin(List<Path[]> steps) {
+    String batch = UUID.randomUUID().toString();
+    List<String> records = new ArrayList<>();
+    CompletableFuture<Void> written;
+    synchronized (this) {
+      // the session is only recorded with its first batch, so sessions without renames leave no trace
+      if (this.session != null) {
+        records.add(record(SESSION, this.session));
+        this.session = null;
+      }
+      records.add(record(BEGIN, batch));
+      steps.forEach(s -> records.add(record(PLAN, batch, s[0].toString(), s[1].toString())));
+      written = write(new Group(records));
+    }
+    written.join();
+    return batch;
+  }
+
+  public CompletableFuture<Void> done(String batch, Path source, Path target) {
+    return write(new Group(Collections.singletonList(record(DONE, batch, source.toString(), target.toString()))));
+  }
+
+  public void end(String batch) {
+    write(new Group(Collections.singletonList(record(END, batch)))).join();
+  }
+
+  public synchronized int recover() {
+    int result = 0;
+    List<Path> journals = listJournals();
+    Set<Path> finished = new HashSet<>();
+    for (Path journal : journals) {
+      try (Owned owned = Owned.tryOpen(journal)) {
+        if (owned == null) {
+          log.debug("rename journal '{}' belongs to a running process, not recovered", journal);
+          continue;
+        }
+        FileTime modified = Files.getLastModifiedTime(journal);
+        for (Batch batch : read(owned.channel).values()) {
+          if (!batch.ended && !batch.undone) {
+            log.warn("rename batch {} was interrupted, roll back {} completed renames", batch.id, batch.done.size());
+            batch.done.addAll(batch.detectUnrecorded());
+            result += undo(batch, owned.channel);
+          }
+        }
+        Files.setLastModifiedTime(journal, modified);
+        finished.add(journal);
+      } catch (IOException e) {
+        log.error("could not recover rename journal '{}': {}", journal, e.toString());
+      }
+    }
+    prune(journals, finished);
+    return result;
+  }
+
+  public synchronized int undoLastSession() {
+    List<Path> journals = listJournals();
+    Collections.reverse(journals);
+    for (Path journal : journals) {
+      try (Owned owned = Owned.tryOpen(journal)) {
+        if (owned == null) {
+          log.info("rename journal '{}' belongs to a running process, skipped", journal);
+          continue;
+        }
+        List<Batch> reversed = new ArrayList<>(read(owned.channel).values());
+        Collections.reverse(reversed);
+        Batch last = reversed.stream().filter(Batch::isUndoable).findFirst().orElse(null);
+        if (last == null) {
+          continue;
+        }
+        FileTime modified = Files.getLastModifiedTime(journal);
+        int result = 0;
+        for (Batch batch : reversed) {
+          if (batch.isUndoable() && Objects.equals(batch.session, last.session)) {
+            if (!batch.ended) {
+              batch.done.addAll(batch.detectUnrecorded());
+            }
+            result += undo(batch, owned.channel);
+          }
+        }
+        Files.setLastModifiedTime(journal, modified);
+        log.info("undo of last rename session reverted {} renames", result);
+        return result;
+      } catch (IOException e) {
+        log.error("could not undo rename journal '{}': {}", journal, e.toString());
+        return 0;
+      }
+    }
+    log.info("no rename session to undo");
+    return 0;
+  }
+
+  private List<Path> listJournals() {
+    List<Path> result = new ArrayList<>();
+    if (!Files.isDirectory(this.directory)) {
+      return result;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + FILE_EXTENSION)) {
+      stream.forEach(p -> {
+        if (!p.equals(this.file)) {
+          result.add(p);
+        }
+      });
+    } catch (IOException e) {
+      log.error("could not list rename journals in '{}': {}", this.directory, e.toString());
+    }
+    result.sort(Comparator.comparingLong(RenameJournal::lastModified).thenComparing(Path::toString));
+    return result;
+  }
+
+  private static void prune(List<Path> journals, Set<Path> finished) {
+    for (int i = 0; i < journals.size() - MAX_JOURNALS; i++) {
+      Path journal = journals.get(i);
+      try {
+        if (finished.contains(journal)) {
+          Files.deleteIfExists(journal);
+        }
+      } catch (IOException e) {
+        log.warn("could not delete rename journal '{}': {}", journal, e.toString());
+      }
+    }
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static int undo(Batch batch, FileChannel channel) throws IOException {
+    List<Path[]> steps = new ArrayList<>(batch.done);
+    Collections.reverse(steps);
+    int result = 0;
+    for (Path[] step : steps) {
+      try {
+        if (Files.exists(step[1]) && !Files.exists(step[0])) {
+          Files.move(step[1], step[0]);
+          result++;
+        } else {
+          log.warn("cannot undo rename '{}' -> '{}'", step[0], step[1]);
+        }
+      } catch (IOException e) {
+        log.error("undo of rename '{}' -> '{}' failed: {}", step[0], step[1], e.toString());
+      }
+    }
+    channel.position(channel.size());
+    write(channel, record(UNDONE, batch.id));
+    channel.force(false);
+    return result;
+  }
+
+  private static Map<String, Batch> read(FileChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+    channel.position(0);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        break;
+      }
+    }
+    Map<String, Batch> result = new LinkedHashMap<>();
+    String session = null;
+    for (String line : new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).split("\n")) {
+      String[] parts = line.split("\t", -1);
+      if (parts.length < 2) {
+        continue;
+      }
+      String type = parts[0];
+      if (SESSION.equals(type)) {
+        session = parts[1];
+        continue;
+      }
+      String current = session;
+      Batch batch = result.computeIfAbsent(parts[1], id -> new Batch(id, current));
+      if (PLAN.equals(type) && parts.length == 4) {
+        batch.planned.add(new Path[] {Paths.get(unescape(parts[2])), Paths.get(unescape(parts[3]))});
+      } else if (DONE.equals(type) && parts.length == 4) {
+        batch.done.add(new Path[] {Paths.get(unescape(parts[2])), Paths.get(unescape(parts[3]))});
+      } else if (END.equals(type)) {
+        batch.ended = true;
+      } else if (UNDONE.equals(type)) {
+        batch.undone = true;
+      }
+    }
+    result.values().removeIf(b -> b.planned.isEmpty() && !b.ended);
+    return result;
+  }
+
+  private static String record(String... fields) {
+    StringBuilder result = new StringBuilder();
+    for (String field : fields) {
+      if (result.length() > 0) {
+        result.append('\t');
+      }
+      result.append(escape(field));
+    }
+    return result.append('\n').toString();
+  }
+
+  static String escape(String field) {
+    StringBuilder result = new StringBuilder(field.length());
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      switch (c) {
+        case '\\':
+          result.append("\\\\");
+          break;
+        case '\t':
+          result.append("\\t");
+          break;
+        case '\n':
+          result.append("\\n");
+          break;
+        case '\r':
+          result.append("\\r");
+          break;
+        default:
+          result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+  static String unescape(String field) {
+    StringBuilder result = new StringBuilder(field.length());
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      if (c == '\\' && i + 1 < field.length()) {
+        char next = field.charAt(++i);
+        result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+      } else {
+        result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+  private synchronized CompletableFuture<Void> write(Group group) {
+    if (this.writer == null) {
+      this.writer = new Thread(this::writeLoop, "rename-journal");
+      this.writer.setDaemon(true);
+      this.writer.start();
+    }
+    this.queue.add(group);
+    return group.future;
+  }
+
+  private void writeLoop() {
+    List<Group> groups = new ArrayList<>();
+    while (true) {
+      try {
+        groups.add(this.queue.take());
+        this.queue.drainTo(groups, MAX_GROUP_SIZE);
+        commit(groups);
+        groups.forEach(g -> g.future.complete(null));
+      } catch (IOException e) {
+        log.error("could not write rename journal '{}': {}", this.file, e.toString());
+        groups.forEach(g -> g.future.completeExceptionally(e));
+      } catch (InterruptedException e) {
+        return;
+      }
+      groups.clear();
+    }
+  }
+
+  private void commit(List<Group> groups) throws IOException {
+    if (this.channel == null) {
+      Files.createDirectories(this.directory);
+      FileChannel opened = FileChannel.open(this.file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      opened.lock();
+      this.channel = opened;
+    }
+    StringBuilder data = new StringBuilder();
+    groups.forEach(g -> g.records.forEach(data::append));
+    write(this.channel, data.toString());
+    this.channel.force(false);
+  }
+
+  private static void write(FileChannel channel, String data) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static class Owned implements AutoCloseable {
+
+    private final FileChannel channel;
+
+    private Owned(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    static Owned tryOpen(Path journal) throws IOException {
+      FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        FileLock lock = channel.tryLock();
+        if (lock != null) {
+          return new Owned(channel);
+        }
+      } catch (OverlappingFileLockException e) {
+        log.debug("rename journal '{}' is locked in this process", journal);
+      }
+      channel.close();
+      return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+  }
+
+  private static class Group {
+
+    private final List<String> records;
+
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    Group(List<String> records) {
+      this.records = records;
+    }
+  }
+
+  private static class Batch {
+
+    private final String id;
+
+    private final String session;
+
+    private final List<Path[]> planned = new ArrayList<>();
+
+    private final List<Path[]> done = new ArrayList<>();
+
+    private boolean ended;
+
+    private boolean undone;
+
+    Batch(String id, String session) {
+      this.id = id;
+      this.session = session;
+    }
+
+    boolean isUndoable() {
+      return !this.undone && (!this.ended || !this.done.isEmpty());
+    }
+
+    List<Path[]> detectUnrecorded() {
+      Set<String> recorded = new LinkedHashSet<>();
+      this.done.forEach(s -> recorded.add(s[0] + "\t" + s[1]));
+      List<Path[]> result = new ArrayList<>();
+      for (Path[] step : this.planned) {
+        if (!recorded.contains(step[0] + "\t" + step[1]) && !Files.exists(step[0]) && Files.exists(step[1])) {
+          result.add(step);
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.EpisodeTableItem;
+import de.cathixx.renamer.util.RenameEngine.MoveResult;
+import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class RenameResult {
+
+  private final Map<EpisodeTableItem, MoveResult> results;
+
+  RenameResult(Map<EpisodeTableItem, MoveResult> results) {
+    this.results = results;
+  }
+
+  public void apply() {
+    for (Map.Entry<EpisodeTableItem, MoveResult> entry : this.results.entrySet()) {
+      if (entry.getValue().isSuccess()) {
+        EpisodeTableItem tableItem = entry.getKey();
+        File newFile = entry.getValue().getMove().getTarget().toFile();
+        tableItem.getFile().set(newFile);
+        tableItem.getOldName().set(TVShowFileSupport.getName(newFile));
+      }
+    }
+  }
+
+  public int getRenamedCount() {
+    return (int) this.results.values().stream().filter(MoveResult::isSuccess).count();
+  }
+
+  public Collection<EpisodeTableItem> getFailed() {
+    return this.results.entrySet().stream().filter(e -> !e.getValue().isSuccess()).map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+  }
+
+  public Map<EpisodeTableItem, String> getFailureReasons() {
+    return this.results.entrySet().stream().filter(e -> !e.getValue().isSuccess())
+        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getReason()));
+  }
+}
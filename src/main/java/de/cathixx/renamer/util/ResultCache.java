@@ -0,0 +1,154 @@
+package de.cathixx.renamer.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class ResultCache {
+
+  private final Map<Object, Segment> segments = new HashMap<>();
+
+  private final long defaultMaxWeight;
+
+  private long hitCount;
+
+  private long missCount;
+
+  private long evictionCount;
+
+  public ResultCache(long defaultMaxEntries) {
+    this.defaultMaxWeight = defaultMaxEntries;
+  }
+
+  public synchronized ResultCache limit(Object type, long maxWeight, ToLongFunction<Object> weigher,
+      Duration expireAfterWrite) {
+    this.segments.put(type, new Segment(type, maxWeight, weigher, expireAfterWrite));
+    return this;
+  }
+
+  public synchronized Object get(Object type, Object key) {
+    Segment segment = this.segments.get(type);
+    Object result = segment != null ? segment.get(key) : null;
+    if (result != null) {
+      this.hitCount++;
+    } else {
+      this.missCount++;
+    }
+    return result;
+  }
+
+  public synchronized void put(Object type, Object key, Object value) {
+    if (value == null) {
+      return;
+    }
+    Segment segment = this.segments.computeIfAbsent(type,
+        t -> new Segment(t, this.defaultMaxWeight, v -> 1, null));
+    segment.put(key, value);
+  }
+
+  public synchronized long getHitCount() {
+    return this.hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return this.missCount;
+  }
+
+  public synchronized long getEvictionCount() {
+    return this.evictionCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("hits=%d, misses=%d, evictions=%d", this.hitCount, this.missCount, this.evictionCount);
+  }
+
+  private class Segment {
+
+    private final Object type;
+
+    private final long maxWeight;
+
+    private final ToLongFunction<Object> weigher;
+
+    private final Duration expireAfterWrite;
+
+    private final LinkedHashMap<Object, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    Segment(Object type, long maxWeight, ToLongFunction<Object> weigher, Duration expireAfterWrite) {
+      this.type = type;
+      this.maxWeight = maxWeight;
+      this.weigher = weigher;
+      this.expireAfterWrite = expireAfterWrite;
+    }
+
+    Object get(Object key) {
+      CacheEntry entry = this.entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (isExpired(entry)) {
+        remove(key);
+        return null;
+      }
+      return entry.value;
+    }
+
+    void put(Object key, Object value) {
+      long entryWeight = Math.max(0, this.weigher.applyAsLong(value));
+      remove(key);
+      if (entryWeight > this.maxWeight) {
+        log.debug("[{}] entry too large for cache ({} > {})", this.type, entryWeight, this.maxWeight);
+        return;
+      }
+      this.entries.put(key, new CacheEntry(value, entryWeight, System.currentTimeMillis()));
+      this.weight += entryWeight;
+      evict();
+    }
+
+    private void evict() {
+      Iterator<CacheEntry> it = this.entries.values().iterator();
+      while (this.weight > this.maxWeight && it.hasNext()) {
+        CacheEntry eldest = it.next();
+        it.remove();
+        this.weight -= eldest.weight;
+        ResultCache.this.evictionCount++;
+        log.debug("[{}] evicted cache entry, weight now {}/{}", this.type, this.weight, this.maxWeight);
+      }
+    }
+
+    private void remove(Object key) {
+      CacheEntry old = this.entries.remove(key);
+      if (old != null) {
+        this.weight -= old.weight;
+      }
+    }
+
+    private boolean isExpired(CacheEntry entry) {
+      return this.expireAfterWrite != null
+          && System.currentTimeMillis() - entry.created > this.expireAfterWrite.toMillis();
+    }
+  }
+
+  private static class CacheEntry {
+
+    private final Object value;
+
+    private final long weight;
+
+    private final long created;
+
+    CacheEntry(Object value, long weight, long created) {
+      this.value = value;
+      this.weight = weight;
+      this.created = created;
+    }
+  }
+}
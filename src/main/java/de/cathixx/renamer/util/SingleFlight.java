@@ -0,0 +1,122 @@
+package de.cathixx.renamer.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class SingleFlight {
+
+  private final ExecutorService executor;
+
+  private final Map<Object, Call<?>> calls = new HashMap<>();
+
+  public SingleFlight(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  @SuppressWarnings("unchecked")
+  public synchronized <V> Future<V> submit(Object key, Callable<V> task) {
+    Call<V> call = (Call<V>) this.calls.get(key);
+    if (call == null) {
+      Call<V> newCall = new Call<>();
+      this.calls.put(key, newCall);
+      newCall.future = this.executor.submit(() -> {
+        try {
+          return task.call();
+        } finally {
+          remove(key, newCall);
+        }
+      });
+      call = newCall;
+    } else {
+      log.debug("join in-flight request {}", key);
+    }
+    call.references++;
+    return new Handle<>(key, call);
+  }
+
+  public synchronized int getInFlightCount() {
+    return this.calls.size();
+  }
+
+  private synchronized void remove(Object key, Call<?> call) {
+    this.calls.remove(key, call);
+  }
+
+  private synchronized boolean release(Object key, Call<?> call, boolean mayInterruptIfRunning) {
+    call.references--;
+    if (call.references > 0) {
+      return true;
+    }
+    this.calls.remove(key, call);
+    return call.future.cancel(mayInterruptIfRunning) || call.future.isDone();
+  }
+
+  private static class Call<V> {
+
+    private Future<V> future;
+
+    private int references;
+  }
+
+  private class Handle<V> implements Future<V> {
+
+    private final Object key;
+
+    private final Call<V> call;
+
+    private volatile boolean cancelled;
+
+    Handle(Object key, Call<V> call) {
+      this.key = key;
+      this.call = call;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      synchronized (SingleFlight.this) {
+        if (this.cancelled || this.call.future.isDone()) {
+          return false;
+        }
+        this.cancelled = true;
+        return release(this.key, this.call, mayInterruptIfRunning);
+      }
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return this.cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+      return this.cancelled || this.call.future.isDone();
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+      checkCancelled();
+      return this.call.future.get();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      checkCancelled();
+      return this.call.future.get(timeout, unit);
+    }
+
+    private void checkCancelled() {
+      if (this.cancelled) {
+        throw new CancellationException("request cancelled");
+      }
+    }
+  }
+}
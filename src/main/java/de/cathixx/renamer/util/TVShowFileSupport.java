@@ -6,17 +6,17 @@ import de.cathixx.renamer.data.EpisodeTableItem;
 import de.cathixx.renamer.data.Language;
 import de.cathixx.renamer.gui.DialogSupport;
 import java.io.File;
-import java.io.FileFilter;
-import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -27,21 +27,6 @@ public class TVShowFileSupport {
 
   private static final Pattern SEASON_DIR_PATTERN = Pattern.compile("^[a-zA-Z]+ ([\\d]+).*$");
 
-  private static String[] FILE_EXTENSIONS = {".avi", ".mkv", ".mpg", ".mp4", ".mov"};
-
-  private static final FileFilter EPISODE_FILTER = file -> {
-    if (!file.isFile()) {
-      return false;
-    }
-    String name = file.getName().toLowerCase();
-    for (String ext : FILE_EXTENSIONS) {
-      if (name.endsWith(ext)) {
-        return true;
-      }
-    }
-    return false;
-  };
-
   public static DirectoryInfos handleArgs(List<String> args, ResourceBundle res) {
     if (args.size() == 0) {
       DialogSupport.showErrorWithException("error.args.missing", res);
@@ -57,7 +42,7 @@ public class TVShowFileSupport {
       files = args.stream().map(File::new).collect(Collectors.toList());
       file = file.getParentFile();
     } else {
-      files = Arrays.asList(Objects.requireNonNull(file.listFiles(TVShowFileSupport::filterSeasonDirs)));
+      files = listSeasonDirectories(file);
     }
     files.sort(TVShowFileSupport::compare);
     log.debug("tv show path: '{}'", file.getAbsolutePath());
@@ -69,6 +54,13 @@ public class TVShowFileSupport {
     return new DirectoryInfos(file, files);
   }
 
+  public static List<File> listSeasonDirectories(File showDirectory) {
+    List<File> result = DirectoryScanner.listDirectories(showDirectory,
+        name -> SEASON_DIR_PATTERN.matcher(name).matches());
+    result.sort(TVShowFileSupport::compare);
+    return result;
+  }
+
   private static int compare(File o1, File o2) {
     Matcher matcher1 = SEASON_DIR_PATTERN.matcher(o1.getName());
     Matcher matcher2 = SEASON_DIR_PATTERN.matcher(o2.getName());
@@ -79,6 +71,17 @@ public class TVShowFileSupport {
     }
   }
 
+  public static SortedSet<Integer> getSeasonNumbers(Collection<File> seasonFiles) {
+    SortedSet<Integer> result = new TreeSet<>();
+    for (File seasonFile : seasonFiles) {
+      Matcher matcher = SEASON_DIR_PATTERN.matcher(seasonFile.getName());
+      if (matcher.find()) {
+        result.add(Integer.parseInt(matcher.group(1)));
+      }
+    }
+    return result;
+  }
+
   private static int getSeasonNumber(File file) {
     Matcher matcher = SEASON_DIR_PATTERN.matcher(file.getName());
     if (!matcher.find()) {
@@ -87,38 +90,65 @@ public class TVShowFileSupport {
     return Integer.parseInt(matcher.group(1));
   }
 
-  private static boolean filterSeasonDirs(File f) {
-    return f.isDirectory() && SEASON_DIR_PATTERN.matcher(f.getName()).matches();
+  public static Collection<EpisodeTableItem> listEpisodes(Collection<File> seasonFiles) {
+    return listEpisodes(seasonFiles, DirectoryScanner.getDefault(), DirectorySnapshots.getDefault());
   }
 
-  public static Collection<EpisodeTableItem> listEpisodes(Collection<File> seasonFiles) {
-    List<EpisodeTableItem> result = new ArrayList<>();
+  public static Collection<EpisodeTableItem> listEpisodes(Collection<File> seasonFiles, DirectoryScanner scanner) {
+    Map<File, Integer> seasonNumbers = mapSeasonNumbers(seasonFiles);
+    Map<File, List<File>> scanned = scanner.listEpisodeFiles(seasonNumbers.keySet());
+    Map<File, Map<File, Integer>> episodeNumbers = new LinkedHashMap<>();
+    scanned.forEach((seasonDir, files) -> {
+      EpisodeNumberRecognizer recognizer = new EpisodeNumberRecognizer(seasonNumbers.get(seasonDir));
+      Map<File, Integer> numbers = new LinkedHashMap<>();
+      files.forEach(file -> numbers.put(file, getEpisodeNumber(file, recognizer)));
+      episodeNumbers.put(seasonDir, numbers);
+    });
+    return createEpisodes(seasonNumbers, episodeNumbers);
+  }
+
+  public static Collection<EpisodeTableItem> listEpisodes(Collection<File> seasonFiles, DirectoryScanner scanner,
+      DirectorySnapshots snapshots) {
+    Map<File, Integer> seasonNumbers = mapSeasonNumbers(seasonFiles);
+    return createEpisodes(seasonNumbers, snapshots.listEpisodeNumbers(seasonNumbers, scanner));
+  }
+
+  private static Map<File, Integer> mapSeasonNumbers(Collection<File> seasonFiles) {
+    Map<File, Integer> result = new LinkedHashMap<>();
     for (File seasonDir : seasonFiles) {
       Matcher matcher = SEASON_DIR_PATTERN.matcher(seasonDir.getName());
       if (matcher.find()) {
-        int seasonNumber = Integer.parseInt(matcher.group(1));
-        File[] episodeFiles = seasonDir.listFiles(EPISODE_FILTER);
-        Arrays.sort(episodeFiles, Comparator.comparing(File::getName));
-        boolean firstOfSeason = !result.isEmpty();
-        List<File> missing = new ArrayList<>();
-        BitSet found = new BitSet();
-        for (File file : episodeFiles) {
-          Integer episodeNumber = getEpisodeNumber(file, seasonNumber);
-          if (episodeNumber != null) {
+        result.put(seasonDir, Integer.parseInt(matcher.group(1)));
+      }
+    }
+    return result;
+  }
+
+  private static Collection<EpisodeTableItem> createEpisodes(Map<File, Integer> seasonNumbers,
+      Map<File, Map<File, Integer>> episodeNumbers) {
+    List<EpisodeTableItem> result = new ArrayList<>();
+    for (Map.Entry<File, Integer> season : seasonNumbers.entrySet()) {
+      int seasonNumber = season.getValue();
+      boolean firstOfSeason = !result.isEmpty();
+      List<File> missing = new ArrayList<>();
+      BitSet found = new BitSet();
+      for (Map.Entry<File, Integer> episode : episodeNumbers.get(season.getKey()).entrySet()) {
+        File file = episode.getKey();
+        Integer episodeNumber = episode.getValue();
+        if (episodeNumber != null) {
+          found.set(episodeNumber);
+          addEpisode(result, seasonNumber, firstOfSeason, file, getName(file), episodeNumber);
+          firstOfSeason = false;
+        } else {
+          missing.add(file);
+        }
+      }
+      for (File file : missing) {
+        for (int episodeNumber = 1; episodeNumber < 1000; episodeNumber++) {
+          if (!found.get(episodeNumber)) {
             found.set(episodeNumber);
             addEpisode(result, seasonNumber, firstOfSeason, file, getName(file), episodeNumber);
-            firstOfSeason = false;
-          } else {
-            missing.add(file);
-          }
-        }
-        for (File file : missing) {
-          for (int episodeNumber = 1; episodeNumber < 1000; episodeNumber++) {
-            if (!found.get(episodeNumber)) {
-              found.set(episodeNumber);
-              addEpisode(result, seasonNumber, firstOfSeason, file, getName(file), episodeNumber);
-              break;
-            }
+            break;
           }
         }
       }
@@ -128,6 +158,25 @@ public class TVShowFileSupport {
     return result;
   }
 
+  public static List<EpisodeTableItem> createEpisodes(File seasonDirectory, Collection<File> episodeFiles) {
+    List<EpisodeTableItem> result = new ArrayList<>();
+    Matcher matcher = SEASON_DIR_PATTERN.matcher(seasonDirectory.getName());
+    if (!matcher.find()) {
+      return result;
+    }
+    int seasonNumber = Integer.parseInt(matcher.group(1));
+    EpisodeNumberRecognizer recognizer = new EpisodeNumberRecognizer(seasonNumber);
+    List<File> sorted = new ArrayList<>(episodeFiles);
+    sorted.sort(Comparator.comparing(File::getName));
+    for (File file : sorted) {
+      Integer episodeNumber = getEpisodeNumber(file, recognizer);
+      if (episodeNumber != null) {
+        addEpisode(result, seasonNumber, result.isEmpty(), file, getName(file), episodeNumber);
+      }
+    }
+    return result;
+  }
+
   private static void addEpisode(Collection<EpisodeTableItem> result, int seasonNumber, boolean firstOfSeason,
       File file, String name, Integer episodeNumber) {
     EpisodeTableItem item = new EpisodeTableItem(file, seasonNumber, episodeNumber, firstOfSeason);
@@ -137,35 +186,18 @@ public class TVShowFileSupport {
     item.getSelected().set(true);
   }
 
-  private static String getName(File file) {
+  static String getName(File file) {
     String name = file.getName();
     name = name.substring(0, name.lastIndexOf('.'));
     return name;
   }
 
-  private static Integer getEpisodeNumber(File file, int seasonNumber) {
-    String fileName = file.getName();
-    final String[] removeStr = {"-x264-"};
-    final String[] patterns = {"(?i:S)%S(?i:E)%E", "(?i:S)%S(?i:x)%E", "%S(?i:x)%E", "(?i:S)%S.(?i:E)%E", "- %S%E -",
-        "(?i:Ep)%E", "-(?i:E)%E-", "%S-%E", "%S%E$", "^%E$"};
-    for (String remove : removeStr) {
-      fileName = fileName.replaceAll(remove, "");
+  static Integer getEpisodeNumber(File file, EpisodeNumberRecognizer recognizer) {
+    Integer result = recognizer.recognize(file.getName());
+    if (result == null) {
+      log.warn("no pattern matches to " + file.getName());
     }
-    for (String patternString : patterns) {
-      for (int i = 2; i >= 1; i--) {
-        NumberFormat nf = NumberFormat.getInstance();
-        nf.setMinimumIntegerDigits(i);
-        String ps = patternString.replace("%S", nf.format(seasonNumber));
-        ps = ps.replace("%E", "([\\d][\\d])");
-        Pattern pattern = Pattern.compile(ps);
-        Matcher matcher = pattern.matcher(fileName);
-        if (matcher.find()) {
-          return Integer.valueOf(matcher.group(1));
-        }
-      }
-    }
-    log.warn("no pattern matches to " + fileName);
-    return null;
+    return result;
   }
 
   static File createNewFileName(File oldFile, String newName) {
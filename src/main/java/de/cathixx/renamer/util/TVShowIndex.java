@@ -0,0 +1,296 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.TVShow;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class TVShowIndex {
+
+  private static final String STORE_KEY = "tvshows";
+
+  private static final String REFRESHED_STORE_KEY = "refreshed";
+
+  private static final int GRAM_LENGTH = 3;
+
+  private static final String PADDING = "  ";
+
+  private static final double MIN_SCORE = 0.4;
+
+  private static final int DEFAULT_LIMIT = 20;
+
+  private static final TVShowIndex DEFAULT = new TVShowIndex(new DiskStore(DiskStore.defaultDirectory("index")));
+
+  private final DiskStore store;
+
+  private final Map<String, TVShow> shows = new LinkedHashMap<>();
+
+  private final Map<String, Long> refreshed = new HashMap<>();
+
+  private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(TVShowIndex::createThread);
+
+  private volatile Snapshot snapshot;
+
+  private boolean loaded;
+
+  public TVShowIndex(DiskStore store) {
+    this.store = store;
+    this.snapshot = new Snapshot(new ArrayList<>());
+  }
+
+  public static TVShowIndex getDefault() {
+    return DEFAULT;
+  }
+
+  public void loadAsync() {
+    this.executor.execute(this::load);
+  }
+
+  public synchronized void load() {
+    if (this.loaded) {
+      return;
+    }
+    this.loaded = true;
+    Object stored = this.store.read(STORE_KEY);
+    if (stored instanceof List) {
+      for (Object tvShow : (List<?>) stored) {
+        this.shows.putIfAbsent(((TVShow) tvShow).getKey(), (TVShow) tvShow);
+      }
+      this.snapshot = new Snapshot(this.shows.values());
+      log.debug("loaded {} TV-shows into the local index", this.shows.size());
+    }
+    Object storedRefreshed = this.store.read(REFRESHED_STORE_KEY);
+    if (storedRefreshed instanceof Map) {
+      ((Map<?, ?>) storedRefreshed).forEach((k, v) -> this.refreshed.putIfAbsent((String) k, (Long) v));
+    }
+  }
+
+  public synchronized void addAll(Collection<TVShow> tvShows) {
+    load();
+    long now = System.currentTimeMillis();
+    boolean changed = false;
+    for (TVShow tvShow : tvShows) {
+      this.refreshed.put(tvShow.getKey(), now);
+      TVShow known = this.shows.get(tvShow.getKey());
+      if (known == null || !sameNames(known, tvShow)) {
+        this.shows.put(tvShow.getKey(), tvShow);
+        changed = true;
+      }
+    }
+    if (changed) {
+      this.snapshot = new Snapshot(this.shows.values());
+    }
+    if (!tvShows.isEmpty()) {
+      scheduleSave();
+    }
+  }
+
+  public synchronized long getAge(TVShow tvShow) {
+    Long time = this.refreshed.get(tvShow.getKey());
+    return time != null ? System.currentTimeMillis() - time : Long.MAX_VALUE;
+  }
+
+  public List<TVShow> suggest(String query) {
+    return suggest(query, DEFAULT_LIMIT);
+  }
+
+  public List<TVShow> suggest(String query, int limit) {
+    return this.snapshot.suggest(normalize(query), limit);
+  }
+
+  public TVShow findConfident(String query) {
+    List<TVShow> exact = this.snapshot.exact.get(normalize(query));
+    if (exact == null) {
+      return null;
+    }
+    // the same show listed by several providers is one match, the most popular listing stands for it
+    TVShow confident = null;
+    Set<String> providers = new HashSet<>();
+    for (TVShow tvShow : exact) {
+      if (!providers.add(tvShow.getProvider())
+          || confident != null && !Objects.equals(confident.getYear(), tvShow.getYear())) {
+        return null;
+      }
+      if (confident == null || tvShow.getPopularity() > confident.getPopularity()) {
+        confident = tvShow;
+      }
+    }
+    return confident;
+  }
+
+  public int size() {
+    return this.snapshot.shows.size();
+  }
+
+  private void scheduleSave() {
+    if (this.saveScheduled.compareAndSet(false, true)) {
+      this.executor.execute(() -> {
+        this.saveScheduled.set(false);
+        ArrayList<TVShow> values;
+        HashMap<String, Long> times;
+        synchronized (this) {
+          values = new ArrayList<>(this.shows.values());
+          times = new HashMap<>(this.refreshed);
+        }
+        this.store.write(STORE_KEY, values);
+        this.store.write(REFRESHED_STORE_KEY, times);
+      });
+    }
+  }
+
+  private static boolean sameNames(TVShow t1, TVShow t2) {
+    return t1.getNames().equals(t2.getNames()) && t1.getAliasses().equals(t2.getAliasses())
+        && Objects.equals(t1.getYear(), t2.getYear()) && Objects.equals(t1.getBannerURL(), t2.getBannerURL());
+  }
+
+  static String normalize(String name) {
+    StringBuilder result = new StringBuilder(name.length());
+    boolean space = true;
+    for (int i = 0; i < name.length(); i++) {
+      char c = Character.toLowerCase(name.charAt(i));
+      if (Character.isLetterOrDigit(c)) {
+        result.append(c);
+        space = false;
+      } else if (!space) {
+        result.append(' ');
+        space = true;
+      }
+    }
+    int length = result.length();
+    if (length > 0 && result.charAt(length - 1) == ' ') {
+      result.setLength(length - 1);
+    }
+    return result.toString();
+  }
+
+  static Set<String> grams(String normalized) {
+    String padded = PADDING + normalized;
+    Set<String> result = new LinkedHashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+      result.add(padded.substring(i, i + GRAM_LENGTH));
+    }
+    return result;
+  }
+
+  private static Thread createThread(Runnable r) {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static class Snapshot {
+
+    private final List<TVShow> shows;
+
+    private final List<TVShow> entryShows = new ArrayList<>();
+
+    private final List<String> entryNames = new ArrayList<>();
+
+    private final List<Integer> entryGramCounts = new ArrayList<>();
+
+    private final Map<String, int[]> postings = new HashMap<>();
+
+    private final Map<String, List<TVShow>> exact = new HashMap<>();
+
+    private final Map<TVShow, Set<String>> names = new HashMap<>();
+
+    Snapshot(Collection<TVShow> tvShows) {
+      this.shows = new ArrayList<>(tvShows);
+      Map<String, List<Integer>> postings = new HashMap<>();
+      for (TVShow tvShow : this.shows) {
+        Set<String> names = new LinkedHashSet<>();
+        tvShow.getNames().values().forEach(n -> names.add(normalize(n)));
+        tvShow.getAliasses().forEach(n -> names.add(normalize(n)));
+        names.remove("");
+        this.names.put(tvShow, names);
+        for (String name : names) {
+          int entry = this.entryShows.size();
+          Set<String> grams = grams(name);
+          this.entryShows.add(tvShow);
+          this.entryNames.add(name);
+          this.entryGramCounts.add(grams.size());
+          grams.forEach(g -> postings.computeIfAbsent(g, k -> new ArrayList<>()).add(entry));
+          List<TVShow> exactShows = this.exact.computeIfAbsent(name, k -> new ArrayList<>());
+          if (!exactShows.contains(tvShow)) {
+            exactShows.add(tvShow);
+          }
+        }
+      }
+      postings.forEach((gram, entries) -> this.postings.put(gram, entries.stream().mapToInt(i -> i).toArray()));
+    }
+
+    List<TVShow> suggest(String query, int limit) {
+      if (query.isEmpty() || this.entryShows.isEmpty()) {
+        return new ArrayList<>();
+      }
+      Set<String> grams = grams(query);
+      int[] counts = new int[this.entryShows.size()];
+      for (String gram : grams) {
+        int[] entries = this.postings.get(gram);
+        if (entries != null) {
+          for (int entry : entries) {
+            counts[entry]++;
+          }
+        }
+      }
+      Map<TVShow, Double> scores = new LinkedHashMap<>();
+      for (int entry = 0; entry < counts.length; entry++) {
+        if (counts[entry] > 0) {
+          double score = score(query, grams.size(), entry, counts[entry]);
+          if (score >= MIN_SCORE) {
+            scores.merge(this.entryShows.get(entry), score, Math::max);
+          }
+        }
+      }
+      List<TVShow> ranked = new ArrayList<>(scores.keySet());
+      ranked.sort((t1, t2) -> {
+        int compare = Double.compare(scores.get(t2), scores.get(t1));
+        return compare != 0 ? compare : Float.compare(t2.getPopularity(), t1.getPopularity());
+      });
+      // a listing of a better ranked show by another provider is dropped, at most one per provider and show
+      Map<TVShow, Set<String>> result = new LinkedHashMap<>();
+      for (TVShow tvShow : ranked) {
+        if (result.size() == limit) {
+          break;
+        }
+        boolean duplicate = result.entrySet().stream()
+            .anyMatch(kept -> sameShow(kept.getKey(), tvShow) && kept.getValue().add(tvShow.getProvider()));
+        if (!duplicate) {
+          result.put(tvShow, new HashSet<>());
+        }
+      }
+      return new ArrayList<>(result.keySet());
+    }
+
+    private boolean sameShow(TVShow t1, TVShow t2) {
+      return !t1.getProvider().equals(t2.getProvider()) && Objects.equals(t1.getYear(), t2.getYear())
+          && !Collections.disjoint(this.names.get(t1), this.names.get(t2));
+    }
+
+    private double score(String query, int queryGrams, int entry, int common) {
+      String name = this.entryNames.get(entry);
+      if (name.equals(query)) {
+        return 2;
+      }
+      if (name.startsWith(query)) {
+        return 1 + (double) query.length() / name.length();
+      }
+      return 2.0 * common / (queryGrams + this.entryGramCounts.get(entry));
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package de.cathixx.renamer.util;
+
+import de.cathixx.renamer.data.TVShow;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class TVShowRanking {
+
+  public static final int DEFAULT_LIMIT = 50;
+
+  private static final Pattern YEAR_SUFFIX_PATTERN = Pattern.compile("^(.*?)\\s*\\((\\d{4})\\)$");
+
+  private final String searchName;
+
+  private final int limit;
+
+  public TVShowRanking(String searchName) {
+    this(searchName, DEFAULT_LIMIT);
+  }
+
+  public TVShowRanking(String searchName, int limit) {
+    this.searchName = searchName.trim();
+    this.limit = limit;
+  }
+
+  public List<TVShow> rank(Collection<TVShow> tvShows) {
+    PriorityQueue<Key> heap = new PriorityQueue<>(Math.min(this.limit, tvShows.size()) + 1,
+        Collections.reverseOrder());
+    Set<String> seen = new HashSet<>();
+    for (TVShow tvShow : tvShows) {
+      if (!seen.add(tvShow.getKey())) {
+        continue;
+      }
+      Key key = key(tvShow);
+      if (heap.size() < this.limit) {
+        heap.add(key);
+      } else if (key.compareTo(heap.peek()) < 0) {
+        heap.poll();
+        heap.add(key);
+      }
+    }
+    List<Key> keys = new ArrayList<>(heap);
+    Collections.sort(keys);
+    List<TVShow> result = new ArrayList<>(keys.size());
+    keys.forEach(k -> result.add(k.tvShow));
+    return result;
+  }
+
+  public static List<TVShow> exactMatches(String directoryName, Collection<TVShow> tvShows) {
+    String name = directoryName.trim();
+    Integer year = null;
+    Matcher matcher = YEAR_SUFFIX_PATTERN.matcher(name);
+    if (matcher.matches()) {
+      name = matcher.group(1);
+      year = Integer.valueOf(matcher.group(2));
+    }
+    String normalized = TVShowIndex.normalize(name);
+    List<TVShow> result = new ArrayList<>();
+    for (TVShow tvShow : tvShows) {
+      if ((year == null || year.equals(tvShow.getYear())) && hasName(tvShow, normalized)
+          && !result.contains(tvShow)) {
+        result.add(tvShow);
+      }
+    }
+    return result;
+  }
+
+  private static boolean hasName(TVShow tvShow, String normalized) {
+    for (String name : tvShow.getNames().values()) {
+      if (TVShowIndex.normalize(name).equals(normalized)) {
+        return true;
+      }
+    }
+    for (String alias : tvShow.getAliasses()) {
+      if (TVShowIndex.normalize(alias).equals(normalized)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  Key key(TVShow tvShow) {
+    boolean exact = false;
+    for (String name : tvShow.getNames().values()) {
+      if (this.searchName.equalsIgnoreCase(name)) {
+        exact = true;
+        break;
+      }
+    }
+    int year = tvShow.getYear() != null ? tvShow.getYear() : Integer.MAX_VALUE;
+    return new Key(tvShow, exact, tvShow.getPopularity(), tvShow.getNames().size(), year);
+  }
+
+  static class Key implements Comparable<Key> {
+
+    private final TVShow tvShow;
+
+    private final boolean exact;
+
+    private final float popularity;
+
+    private final int nameCount;
+
+    private final int year;
+
+    Key(TVShow tvShow, boolean exact, float popularity, int nameCount, int year) {
+      this.tvShow = tvShow;
+      this.exact = exact;
+      this.popularity = popularity;
+      this.nameCount = nameCount;
+      this.year = year;
+    }
+
+    @Override
+    public int compareTo(Key o) {
+      if (this.tvShow.equals(o.tvShow)) {
+        return 0;
+      }
+      int result = Boolean.compare(o.exact, this.exact);
+      if (result == 0) {
+        result = Float.compare(o.popularity, this.popularity);
+      }
+      if (result == 0) {
+        result = Integer.compare(o.nameCount, this.nameCount);
+      }
+      if (result == 0) {
+        result = Integer.compare(o.year, this.year);
+      }
+      if (result == 0) {
+        result = this.tvShow.compareTo(o.tvShow);
+      }
+      return result;
+    }
+  }
+}
@@ -1,32 +1,48 @@
 package de.cathixx.renamer.util;
 
 import de.cathixx.renamer.data.EpisodeTableItem;
+import de.cathixx.renamer.util.RenameEngine.Move;
+import de.cathixx.renamer.util.RenameEngine.MoveResult;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class TVShowRenamer {
 
-  public static Collection<EpisodeTableItem> rename(Collection<EpisodeTableItem> tvShows) {
-    Collection<EpisodeTableItem> failed = new ArrayList<>();
+  private static final RenameEngine ENGINE = new RenameEngine(RenameJournal.getDefault());
+
+  public static void startSession() {
+    RenameJournal.getDefault().startSession();
+  }
+
+  public static int recover() {
+    return RenameJournal.getDefault().recover();
+  }
+
+  public static int undoLastSession() {
+    return RenameJournal.getDefault().undoLastSession();
+  }
+
+  public static RenameResult rename(Collection<EpisodeTableItem> tvShows) {
+    Map<Move, EpisodeTableItem> items = new LinkedHashMap<>();
     for (EpisodeTableItem tableItem : tvShows) {
       if (isRename(tableItem)) {
         log.info("rename '{}' -> '{}'", tableItem.getOldName().get(), tableItem.getNewName().get());
         File file = tableItem.getFile().get();
-        String newName = tableItem.getNewName().get();
-        File newFile = TVShowFileSupport.createNewFileName(file, newName);
-        boolean success = file.renameTo(newFile);
-        if (success) {
-          tableItem.getFile().set(newFile);
-          tableItem.getOldName().set(newName);
-        } else {
-          failed.add(tableItem);
-        }
+        File newFile = TVShowFileSupport.createNewFileName(file, tableItem.getNewName().get());
+        items.put(new Move(file.toPath(), newFile.toPath()), tableItem);
       }
     }
-    return failed;
+    List<Move> moves = new ArrayList<>(items.keySet());
+    Map<Move, MoveResult> moved = ENGINE.execute(moves);
+    Map<EpisodeTableItem, MoveResult> result = new LinkedHashMap<>();
+    moved.forEach((move, moveResult) -> result.put(items.get(move), moveResult));
+    return new RenameResult(result);
   }
 
   public static boolean isRename(EpisodeTableItem tableItem) {
@@ -1,12 +1,19 @@
 package de.cathixx.renamer.util;
 
 import de.cathixx.renamer.gui.DialogSupport;
+import de.cathixx.renamer.metrics.Metrics;
+import de.cathixx.renamer.metrics.TaskEvent;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -20,81 +27,169 @@ public class TaskExecutor {
 
   private static final Logger LOG = LoggerFactory.getLogger(TaskExecutor.class);
 
-  private final Map<MultiKey, Object> cache = new HashMap<>();
+  private static final int DEFAULT_MAX_ENTRIES = 100;
 
-  private final Map<Object, Consumer<?>> currentTasks = new HashMap<>();
+  private final ResultCache cache;
+
+  private final Map<Object, Task> currentTasks = new ConcurrentHashMap<>();
+
+  private final AtomicLong generations = new AtomicLong();
+
+  private final ExecutorService pool = Executors.newCachedThreadPool(TaskExecutor::createThread);
 
   private final ProgressUpdater progress;
 
   private final ResourceBundle resources;
 
+  private final Executor callbackExecutor;
+
   public TaskExecutor(ProgressUpdater progress, ResourceBundle resources) {
+    this(progress, resources, new ResultCache(DEFAULT_MAX_ENTRIES));
+  }
+
+  public TaskExecutor(ProgressUpdater progress, ResourceBundle resources, ResultCache cache) {
+    this(progress, resources, cache, Platform::runLater);
+  }
+
+  public TaskExecutor(ProgressUpdater progress, ResourceBundle resources, ResultCache cache,
+      Executor callbackExecutor) {
     this.progress = progress;
     this.resources = resources;
+    this.cache = cache;
+    this.callbackExecutor = callbackExecutor;
   }
 
   @SuppressWarnings("unchecked")
   public <T> void execute(Object type, Supplier<T> supplier, Consumer<T> consumer, Object... data) {
-    synchronized (this.currentTasks) {
-      Object result = this.cache.get(new MultiKey(type, data));
-      if (data[0] != NOCACHE && result != null) {
-        this.currentTasks.remove(type);
-        this.progress.setShowProgress(Collections.unmodifiableCollection(this.currentTasks.keySet()));
-        consumer.accept((T) result);
-        return;
-      }
-      this.currentTasks.put(type, consumer);
-      this.progress.setShowProgress(Collections.unmodifiableCollection(this.currentTasks.keySet()));
+    Task task = new Task(type, this.generations.incrementAndGet());
+    Task previous = this.currentTasks.put(type, task);
+    if (previous != null) {
+      LOG.debug("[{}] task {} superseded by {}", type, previous.generation, task.generation);
+      previous.cancel();
+    }
+    Object result = null;
+    if (data[0] != NOCACHE) {
+      result = this.cache.get(type, new MultiKey(type, data));
+      Metrics.getDefault().increment("cache." + type + (result != null ? ".hit" : ".miss"));
     }
-    Thread thread = new Thread(() -> run(type, supplier, consumer, data));
-    thread.setDaemon(true);
-    thread.start();
+    if (result != null) {
+      this.currentTasks.remove(type, task);
+      task.finish(TaskEvent.CACHED);
+      updateProgress();
+      consumer.accept((T) result);
+      return;
+    }
+    updateProgress();
+    task.start(this.pool.submit(() -> run(type, task, supplier, consumer, data)));
   }
 
-  private <T> void run(Object type, Supplier<T> supplier, Consumer<T> consumer, Object... data) {
+  private <T> void run(Object type, Task task, Supplier<T> supplier, Consumer<T> consumer, Object... data) {
+    long start = System.currentTimeMillis();
     try {
       final T result = supplier.get();
-      Platform.runLater(() -> callback(type, consumer, result, data));
+      Metrics.getDefault().recordSince("task." + type, start);
+      this.callbackExecutor.execute(() -> callback(type, task, consumer, result, data));
     } catch (RuntimeException e) {
-      Platform.runLater(() -> failedcallback(type, consumer, e));
+      if (task.isCancelled()) {
+        LOG.debug("[{}] task {} cancelled: {}", type, task.generation, e.toString());
+      } else {
+        Metrics.getDefault().increment("task." + type + ".failures");
+        this.callbackExecutor.execute(() -> failedcallback(type, task, e));
+      }
     }
   }
 
-  private <T> void callback(Object type, Consumer<T> consumer, T result, Object... data) {
+  private <T> void callback(Object type, Task task, Consumer<T> consumer, T result, Object... data) {
     try {
-      synchronized (this.currentTasks) {
-        if (data[0] != NOCACHE) {
-          this.cache.put(new MultiKey(type, data), result);
-        }
-        Consumer<?> current = this.currentTasks.get(type);
-        if (consumer == current) {
-          this.currentTasks.remove(type);
-          this.progress.setShowProgress(Collections.unmodifiableCollection(this.currentTasks.keySet()));
-          consumer.accept(result);
-        }
+      if (data[0] != NOCACHE) {
+        this.cache.put(type, new MultiKey(type, data), result);
+        LOG.debug("result cache: {}", this.cache);
+      }
+      if (this.currentTasks.remove(type, task)) {
+        updateProgress();
+        task.finish(TaskEvent.DELIVERED);
+        consumer.accept(result);
+      } else {
+        task.finish(TaskEvent.SUPERSEDED);
       }
     } catch (RuntimeException e) {
       DialogSupport.showError("error.exception", this.resources, e.toString(), false);
     }
   }
 
-  private <T> void failedcallback(Object type, Consumer<T> consumer, RuntimeException e) {
+  private void failedcallback(Object type, Task task, RuntimeException e) {
     LOG.error("request failed", e);
-    synchronized (this.currentTasks) {
-      Consumer<?> current = this.currentTasks.get(type);
-      if (consumer == current) {
-        this.currentTasks.remove(type);
-        this.progress.setShowProgress(Collections.unmodifiableCollection(this.currentTasks.keySet()));
-      }
+    task.finish(TaskEvent.FAILED);
+    if (this.currentTasks.remove(type, task)) {
+      updateProgress();
     }
     DialogSupport.showError("error.exception", this.resources, e.toString(), false);
   }
 
+  private void updateProgress() {
+    this.progress.setShowProgress(Collections.unmodifiableCollection(this.currentTasks.keySet()));
+  }
+
+  public ResultCache getCache() {
+    return this.cache;
+  }
+
+  private static Thread createThread(Runnable r) {
+    Thread t = Executors.defaultThreadFactory().newThread(r);
+    t.setDaemon(true);
+    return t;
+  }
+
   public interface ProgressUpdater {
 
     void setShowProgress(Collection<Object> loadingTypes);
   }
 
+  private static class Task {
+
+    private final long generation;
+
+    private final TaskEvent event;
+
+    private volatile Future<?> future;
+
+    private volatile boolean cancelled;
+
+    private boolean finished;
+
+    Task(Object type, long generation) {
+      this.generation = generation;
+      this.event = TaskEvent.queued(type, generation);
+    }
+
+    void start(Future<?> future) {
+      this.future = future;
+      if (this.cancelled) {
+        future.cancel(true);
+      }
+    }
+
+    void cancel() {
+      this.cancelled = true;
+      finish(TaskEvent.SUPERSEDED);
+      Future<?> f = this.future;
+      if (f != null) {
+        f.cancel(true);
+      }
+    }
+
+    boolean isCancelled() {
+      return this.cancelled;
+    }
+
+    synchronized void finish(String outcome) {
+      if (!this.finished) {
+        this.finished = true;
+        this.event.finish(outcome);
+      }
+    }
+  }
+
   public static class MultiKey {
 
     private final Object[] keys;
@@ -0,0 +1,94 @@
+package de.cathixx.renamer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class EpisodeNumberRecognizerTest {
+
+  private static final String CORPUS = "/episode-names.txt";
+
+  @Test
+  void recognizesLikeBaseline() throws IOException {
+    List<String[]> corpus = readCorpus();
+    assertFalse(corpus.isEmpty());
+    for (String[] entry : corpus) {
+      int seasonNumber = Integer.parseInt(entry[0]);
+      assertEquals(baseline(entry[1], seasonNumber), new EpisodeNumberRecognizer(seasonNumber).recognize(entry[1]),
+          entry[1]);
+    }
+  }
+
+  @Test
+  void sharedRecognizerIsIndependentOfOrder() throws IOException {
+    List<String[]> corpus = readCorpus();
+    for (String[] first : corpus) {
+      int seasonNumber = Integer.parseInt(first[0]);
+      EpisodeNumberRecognizer recognizer = new EpisodeNumberRecognizer(seasonNumber);
+      recognizer.recognize(first[1]);
+      for (String[] entry : corpus) {
+        if (entry[0].equals(first[0])) {
+          assertEquals(baseline(entry[1], seasonNumber), recognizer.recognize(entry[1]),
+              entry[1] + " after " + first[1]);
+        }
+      }
+    }
+  }
+
+  @Test
+  void prefersTemplatesByPriority() {
+    EpisodeNumberRecognizer recognizer = new EpisodeNumberRecognizer(1);
+    assertEquals(7, recognizer.recognize("Show 1x07.mkv"));
+    assertEquals(5, recognizer.recognize("Show.S01E05.1x07.mkv"));
+    assertEquals(5, recognizer.recognize("Ep07 S01E05.mkv"));
+    assertNull(recognizer.recognize("no number here.mkv"));
+  }
+
+  private static List<String[]> readCorpus() throws IOException {
+    List<String[]> result = new ArrayList<>();
+    try (InputStream in = EpisodeNumberRecognizerTest.class.getResourceAsStream(CORPUS);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (!line.isEmpty()) {
+          result.add(line.split("\t", 2));
+        }
+      }
+    }
+    return result;
+  }
+
+  private static Integer baseline(String fileName, int seasonNumber) {
+    final String[] removeStr = {"-x264-"};
+    final String[] patterns = {"(?i:S)%S(?i:E)%E", "(?i:S)%S(?i:x)%E", "%S(?i:x)%E", "(?i:S)%S.(?i:E)%E", "- %S%E -",
+        "(?i:Ep)%E", "-(?i:E)%E-", "%S-%E", "%S%E$", "^%E$"};
+    for (String remove : removeStr) {
+      fileName = fileName.replaceAll(remove, "");
+    }
+    for (String patternString : patterns) {
+      for (int i = 2; i >= 1; i--) {
+        NumberFormat nf = NumberFormat.getInstance();
+        nf.setMinimumIntegerDigits(i);
+        String ps = patternString.replace("%S", nf.format(seasonNumber));
+        ps = ps.replace("%E", "([\\d][\\d])");
+        Pattern pattern = Pattern.compile(ps);
+        Matcher matcher = pattern.matcher(fileName);
+        if (matcher.find()) {
+          return Integer.valueOf(matcher.group(1));
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,122 @@
+package de.cathixx.renamer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PipelineTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @AfterEach
+  void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  void rethrowsErrorOfStageInsteadOfBlocking() throws Exception {
+    List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+    Pipeline<Integer> pipeline = Pipeline.<Integer>create("test")
+        .stage("fail", 1, 1, (Integer i) -> {
+          if (i == 3) {
+            throw new StageError();
+          }
+          return i;
+        })
+        .stage("double", 2, 1, (Integer i) -> i * 2);
+
+    Throwable thrown = runWithin(() -> pipeline.run(range(10), delivered::add));
+
+    assertTrue(thrown instanceof StageError, String.valueOf(thrown));
+    Set<Integer> expected = range(10).stream().filter(i -> i != 3).map(i -> i * 2)
+        .collect(Collectors.toCollection(TreeSet::new));
+    assertEquals(expected, new TreeSet<>(delivered));
+  }
+
+  @Test
+  void rethrowsErrorOfLastWorker() throws Exception {
+    Pipeline<Integer> pipeline = Pipeline.<Integer>create("test")
+        .stage("fail", 1, 1, (Integer i) -> {
+          throw new StageError();
+        });
+
+    Throwable thrown = runWithin(() -> pipeline.run(range(100), i -> fail("nothing may be delivered")));
+
+    assertTrue(thrown instanceof StageError, String.valueOf(thrown));
+  }
+
+  @Test
+  void keepsOrderAndCountUnderBackpressure() throws Exception {
+    List<Integer> delivered = new ArrayList<>();
+    Pipeline<Integer> pipeline = Pipeline.<Integer>create("test")
+        .stage("first", 1, 1, (Integer i) -> i + 1)
+        .stage("second", 1, 1, (Integer i) -> i - 1);
+
+    Throwable thrown = runWithin(() -> pipeline.run(range(2000), i -> {
+      if (i % 100 == 0) {
+        sleep();
+      }
+      delivered.add(i);
+    }));
+
+    assertEquals(null, thrown);
+    assertEquals(range(2000), delivered);
+  }
+
+  private Throwable runWithin(PipelineRun run) throws InterruptedException {
+    Future<?> future = this.executor.submit(() -> {
+      run.run();
+      return null;
+    });
+    try {
+      future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      fail("pipeline did not finish within " + TIMEOUT_SECONDS + "s");
+      return null;
+    }
+  }
+
+  private static List<Integer> range(int count) {
+    return IntStream.range(0, count).boxed().collect(Collectors.toList());
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(5);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private interface PipelineRun {
+
+    void run() throws InterruptedException;
+  }
+
+  private static class StageError extends Error {
+
+    private static final long serialVersionUID = 1L;
+  }
+}
@@ -0,0 +1,149 @@
+package de.cathixx.renamer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.cathixx.renamer.util.RenameEngine.Move;
+import de.cathixx.renamer.util.RenameEngine.MoveResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RenameEngineTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void renamesChainInDependencyOrder() throws IOException {
+    create("a", "b", "c");
+    Map<Move, MoveResult> result = execute(move("a", "b"), move("b", "c"), move("c", "d"));
+    assertAllSucceeded(result);
+    assertEquals(Map.of("b", "a", "c", "b", "d", "c"), contents());
+  }
+
+  @Test
+  void swapsTwoFiles() throws IOException {
+    create("a", "b");
+    assertAllSucceeded(execute(move("a", "b"), move("b", "a")));
+    assertEquals(Map.of("a", "b", "b", "a"), contents());
+  }
+
+  @Test
+  void rotatesCycleOfThree() throws IOException {
+    create("a", "b", "c");
+    assertAllSucceeded(execute(move("a", "b"), move("b", "c"), move("c", "a")));
+    assertEquals(Map.of("a", "c", "b", "a", "c", "b"), contents());
+  }
+
+  @Test
+  void rejectsMoveOntoExistingFile() throws IOException {
+    create("a", "b");
+    Map<Move, MoveResult> result = execute(move("a", "b"));
+    assertFalse(result.values().iterator().next().isSuccess());
+    assertEquals(Map.of("a", "a", "b", "b"), contents());
+  }
+
+  @Test
+  void rejectsMoveOntoSourceOfRejectedMove() throws IOException {
+    create("a", "b", "d");
+    Move blocked = move("b", "d");
+    Move dependent = move("a", "b");
+    Map<Move, MoveResult> result = execute(dependent, blocked);
+    assertFalse(result.get(blocked).isSuccess());
+    assertFalse(result.get(dependent).isSuccess());
+    assertEquals(Map.of("a", "a", "b", "b", "d", "d"), contents());
+  }
+
+  @Test
+  void rejectsChainBehindRejectedMove() throws IOException {
+    create("a", "b", "c", "x", "y");
+    Move first = move("a", "b");
+    Move second = move("b", "c");
+    Move third = move("c", "d");
+    Move duplicate = move("x", "d");
+    Move blocked = move("y", "d");
+    Map<Move, MoveResult> result = execute(first, second, duplicate, third, blocked);
+    assertTrue(result.get(duplicate).isSuccess());
+    assertFalse(result.get(third).isSuccess());
+    assertFalse(result.get(second).isSuccess());
+    assertFalse(result.get(first).isSuccess());
+    assertFalse(result.get(blocked).isSuccess());
+    assertEquals(Map.of("a", "a", "b", "b", "c", "c", "d", "x", "y", "y"), contents());
+  }
+
+  @Test
+  void rejectsDuplicateTarget() throws IOException {
+    create("a", "b");
+    Move first = move("a", "c");
+    Move second = move("b", "c");
+    Map<Move, MoveResult> result = execute(first, second);
+    assertTrue(result.get(first).isSuccess());
+    assertFalse(result.get(second).isSuccess());
+    assertEquals(Map.of("b", "b", "c", "a"), contents());
+  }
+
+  @Test
+  void doesNotReplaceFileCreatedAfterPlanning() throws IOException {
+    create("a");
+    RenameJournal journal = new RenameJournal(this.dir.resolve("journal")) {
+      @Override
+      public String begin(List<Path[]> steps) {
+        try {
+          create("b");
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return null;
+      }
+    };
+    Move move = move("a", "b");
+    Map<Move, MoveResult> result = new RenameEngine(1, journal).execute(List.of(move));
+    assertFalse(result.get(move).isSuccess());
+    assertEquals(Map.of("a", "a", "b", "b"), contents());
+  }
+
+  @Test
+  void changesCaseOnly() throws IOException {
+    create("a");
+    assertAllSucceeded(execute(move("a", "A")));
+    assertEquals(Map.of("A", "a"), contents());
+  }
+
+  private Map<Move, MoveResult> execute(Move... moves) {
+    return new RenameEngine(4, null).execute(List.of(moves));
+  }
+
+  private Move move(String source, String target) {
+    return new Move(this.dir.resolve(source), this.dir.resolve(target));
+  }
+
+  private void create(String... names) throws IOException {
+    for (String name : names) {
+      Files.writeString(this.dir.resolve(name), name, StandardCharsets.UTF_8);
+    }
+  }
+
+  private Map<String, String> contents() throws IOException {
+    Map<String, String> result = new TreeMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.dir)) {
+      for (Path path : stream) {
+        result.put(path.getFileName().toString(), Files.readString(path, StandardCharsets.UTF_8));
+      }
+    }
+    return result;
+  }
+
+  private static void assertAllSucceeded(Map<Move, MoveResult> result) {
+    result.values().forEach(r -> assertTrue(r.isSuccess(), r.getMove().getSource() + ": " + r.getReason()));
+  }
+}
@@ -0,0 +1,142 @@
+package de.cathixx.renamer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RenameJournalTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void recoverSkipsBatchOfRunningSession() throws IOException {
+    Path source = create("a");
+    Path target = this.dir.resolve("b");
+    RenameJournal running = new RenameJournal(this.dir.resolve("journal"));
+    running.startSession();
+    String batch = running.begin(List.<Path[]>of(new Path[] {source, target}));
+    Files.move(source, target);
+    running.done(batch, source, target).join();
+
+    RenameJournal other = new RenameJournal(this.dir.resolve("journal"));
+    assertEquals(0, other.recover());
+    other.startSession();
+    assertTrue(Files.exists(target));
+    assertFalse(Files.exists(source));
+  }
+
+  @Test
+  void recoverRollsBackAbandonedBatch() throws IOException {
+    Path source = create("a\tb");
+    Path target = this.dir.resolve("c\nd");
+    Files.move(source, target);
+    writeJournal("BEGIN\t1", "PLAN\t1\t" + RenameJournal.escape(source.toString()) + "\t"
+        + RenameJournal.escape(target.toString()), "DONE\t1\t" + RenameJournal.escape(source.toString()) + "\t"
+        + RenameJournal.escape(target.toString()));
+
+    RenameJournal journal = new RenameJournal(this.dir.resolve("journal"));
+    assertEquals(1, journal.recover());
+    assertTrue(Files.exists(source));
+    assertFalse(Files.exists(target));
+    assertEquals(0, journal.recover());
+  }
+
+  @Test
+  void undoRevertsOnlyLastSession() throws IOException {
+    Path first = create("a");
+    Path second = create("c");
+    Path firstTarget = this.dir.resolve("b");
+    Path secondTarget = this.dir.resolve("d");
+    Files.move(first, firstTarget);
+    Files.move(second, secondTarget);
+    writeJournal("SESSION\ts1", "BEGIN\t1", "PLAN\t1\t" + first + "\t" + firstTarget,
+        "DONE\t1\t" + first + "\t" + firstTarget, "END\t1", "SESSION\ts2", "BEGIN\t2",
+        "PLAN\t2\t" + second + "\t" + secondTarget, "DONE\t2\t" + second + "\t" + secondTarget, "END\t2");
+
+    RenameJournal journal = new RenameJournal(this.dir.resolve("journal"));
+    assertEquals(1, journal.undoLastSession());
+    assertTrue(Files.exists(second));
+    assertTrue(Files.exists(firstTarget));
+    assertEquals(1, journal.undoLastSession());
+    assertTrue(Files.exists(first));
+    assertEquals(0, journal.undoLastSession());
+  }
+
+  @Test
+  void undoSkipsEmptySessionAfterRealOne() throws IOException {
+    Path source = create("a");
+    Path target = this.dir.resolve("b");
+    Files.move(source, target);
+    writeNamedJournal("0-0-real.journal", "SESSION\ts1", "BEGIN\t1", "PLAN\t1\t" + source + "\t" + target,
+        "DONE\t1\t" + source + "\t" + target, "END\t1");
+    Path empty = writeNamedJournal("1-0-empty.journal", "SESSION\ts2");
+    Files.setLastModifiedTime(empty, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+
+    RenameJournal noop = new RenameJournal(this.dir.resolve("journal"));
+    noop.startSession();
+    try (Stream<Path> journals = Files.list(this.dir.resolve("journal"))) {
+      assertEquals(2, journals.count());
+    }
+
+    assertEquals(1, new RenameJournal(this.dir.resolve("journal")).undoLastSession());
+    assertTrue(Files.exists(source));
+    assertFalse(Files.exists(target));
+  }
+
+  @Test
+  void undoSkipsRunningSession() throws IOException {
+    Path first = create("a");
+    Path firstTarget = this.dir.resolve("b");
+    Files.move(first, firstTarget);
+    writeNamedJournal("0-0-real.journal", "SESSION\ts1", "BEGIN\t1", "PLAN\t1\t" + first + "\t" + firstTarget,
+        "DONE\t1\t" + first + "\t" + firstTarget, "END\t1");
+    Path second = create("c");
+    Path secondTarget = this.dir.resolve("d");
+    RenameJournal running = new RenameJournal(this.dir.resolve("journal"));
+    running.startSession();
+    String batch = running.begin(List.<Path[]>of(new Path[] {second, secondTarget}));
+    Files.move(second, secondTarget);
+    running.done(batch, second, secondTarget).join();
+    running.end(batch);
+
+    assertEquals(1, new RenameJournal(this.dir.resolve("journal")).undoLastSession());
+    assertTrue(Files.exists(first));
+    assertTrue(Files.exists(secondTarget));
+  }
+
+  @Test
+  void escapesFieldSeparators() {
+    String field = "a\tb\nc\\t\rd";
+    assertEquals(-1, RenameJournal.escape(field).indexOf('\t'));
+    assertEquals(-1, RenameJournal.escape(field).indexOf('\n'));
+    assertEquals(field, RenameJournal.unescape(RenameJournal.escape(field)));
+  }
+
+  private Path create(String name) throws IOException {
+    Path result = this.dir.resolve(name);
+    Files.writeString(result, name, StandardCharsets.UTF_8);
+    return result;
+  }
+
+  private void writeJournal(String... records) throws IOException {
+    writeNamedJournal("0-0-abandoned.journal", records);
+  }
+
+  private Path writeNamedJournal(String name, String... records) throws IOException {
+    Path journal = this.dir.resolve("journal").resolve(name);
+    Files.createDirectories(journal.getParent());
+    Files.writeString(journal, String.join("\n", records) + "\n", StandardCharsets.UTF_8);
+    return journal;
+  }
+}
@@ -0,0 +1,59 @@
+package de.cathixx.renamer.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import de.cathixx.renamer.data.Language;
+import de.cathixx.renamer.data.TVShow;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TVShowIndexTest {
+
+  private static final Language ENGLISH = new Language("en", "English");
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void showOfSeveralProvidersIsOneConfidentMatch() {
+    TVShowIndex index = index(show("tmdb", 1, 2005, "Lost", 10), show("tvdb", 2, 2005, "LOST", 20));
+
+    assertEquals("tvdb:2", index.findConfident("lost").getKey());
+    assertEquals(List.of("tvdb:2"), keys(index.suggest("lost")));
+  }
+
+  @Test
+  void showsOfDifferentYearsAreNoConfidentMatch() {
+    TVShowIndex index = index(show("tmdb", 1, 1978, "Dallas", 10), show("tvdb", 2, 2012, "Dallas", 20));
+
+    assertNull(index.findConfident("dallas"));
+    assertEquals(List.of("tvdb:2", "tmdb:1"), keys(index.suggest("dallas")));
+  }
+
+  @Test
+  void showsOfOneProviderAreNoConfidentMatch() {
+    TVShowIndex index = index(show("tmdb", 1, 2005, "Lost", 10), show("tmdb", 2, 2005, "Lost", 20),
+        show("tvdb", 3, 2005, "Lost", 30));
+
+    assertNull(index.findConfident("lost"));
+    assertEquals(List.of("tvdb:3", "tmdb:1"), keys(index.suggest("lost")));
+  }
+
+  private TVShowIndex index(TVShow... tvShows) {
+    TVShowIndex index = new TVShowIndex(new DiskStore(this.dir));
+    index.addAll(List.of(tvShows));
+    return index;
+  }
+
+  private static TVShow show(String provider, int id, int year, String name, float popularity) {
+    return new TVShow(provider, id, year, Map.of(ENGLISH, name), null, List.of(), 0, popularity);
+  }
+
+  private static List<String> keys(List<TVShow> tvShows) {
+    return tvShows.stream().map(TVShow::getKey).toList();
+  }
+}